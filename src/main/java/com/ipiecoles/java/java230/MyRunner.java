@@ -1,40 +1,90 @@
 package com.ipiecoles.java.java230;
 
-import com.ipiecoles.java.java230.exceptions.BatchException;
-import com.ipiecoles.java.java230.exceptions.TechnicienException;
-import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.batch.BudgetErreurs;
+import com.ipiecoles.java.java230.batch.Checkpoint;
+import com.ipiecoles.java.java230.batch.CodeErreur;
+import com.ipiecoles.java.java230.batch.Compression;
+import com.ipiecoles.java.java230.batch.EmployeBatchWriter;
+import com.ipiecoles.java.java230.batch.EmployeParser;
+import com.ipiecoles.java.java230.batch.ErreurLigne;
+import com.ipiecoles.java.java230.batch.EtapePipeline;
+import com.ipiecoles.java.java230.batch.FichierRejets;
+import com.ipiecoles.java.java230.batch.ImportDelta;
+import com.ipiecoles.java.java230.batch.LecteurFlux;
+import com.ipiecoles.java.java230.batch.LecteurLignes;
+import com.ipiecoles.java.java230.batch.LigneEmploye;
+import com.ipiecoles.java.java230.batch.LotLignes;
+import com.ipiecoles.java.java230.batch.ManagerCache;
+import com.ipiecoles.java.java230.batch.MatriculesLus;
+import com.ipiecoles.java.java230.batch.MetriquesBatch;
+import com.ipiecoles.java.java230.batch.MetriquesImport;
+import com.ipiecoles.java.java230.batch.PhaseImport;
+import com.ipiecoles.java.java230.batch.RepertoireDepot;
+import com.ipiecoles.java.java230.batch.SourceLignes;
+import com.ipiecoles.java.java230.exceptions.ImportInterrompuException;
 import com.ipiecoles.java.java230.model.Employe;
 import com.ipiecoles.java.java230.model.Manager;
 import com.ipiecoles.java.java230.model.Technicien;
 import com.ipiecoles.java.java230.repository.EmployeRepository;
 import com.ipiecoles.java.java230.repository.ManagerRepository;
-import org.joda.time.LocalDate;
-import org.joda.time.format.DateTimeFormat;
+import com.ipiecoles.java.java230.service.StatistiquesSalaires;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Scope;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+/**
+ * Import du fichier CSV des employés. L'état d'un import étant conservé dans les champs, chaque instance n'importe
+ * qu'un fichier à la fois : en mode surveillance, une nouvelle instance est créée pour chaque fichier déposé.
+ */
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class MyRunner implements CommandLineRunner {
 
-    private static final String REGEX_MATRICULE = "^[MTC][0-9]{5}$";
-    private static final String REGEX_NOM = "^[\\p{L}- ]*$";
-    private static final String REGEX_PRENOM = "^[\\p{L}- ]*$";
-    private static final int NB_CHAMPS_MANAGER = 5;
-    private static final int NB_CHAMPS_TECHNICIEN = 7;
-    private static final String REGEX_MATRICULE_MANAGER = "^M[0-9]{5}$";
-    private static final int NB_CHAMPS_COMMERCIAL = 7;
+    //Marque la fin des lots à rattacher
+    private static final CompletableFuture<List<LigneEmploye>> FIN_LOTS = CompletableFuture.completedFuture(null);
+
+    //Intervalle auquel la lecture, en attente de place dans la file des lots, vérifie que le rattachement continue
+    private static final long ATTENTE_FILE_MS = 100;
 
     @Autowired
     private EmployeRepository employeRepository;
@@ -42,213 +92,924 @@ public class MyRunner implements CommandLineRunner {
     @Autowired
     private ManagerRepository managerRepository;
 
-    private List<Employe> employes = new ArrayList<>();
+    @Autowired
+    private EmployeBatchWriter employeBatchWriter;
+
+    //Cumul des métriques des imports, exposé en JMX
+    @Autowired
+    private MetriquesBatch metriquesBatch;
+
+    //Statistiques des salaires, à recharger après un import qui a pu modifier les salaires en masse
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
+    //Fabrique des instances important chacune un fichier du répertoire de dépôt
+    @Autowired
+    private ObjectFactory<MyRunner> importeurs;
+
+    /**
+     * Si faux, aucun fichier n'est importé au démarrage de l'application
+     */
+    @Value("${batch.import-au-demarrage:true}")
+    private boolean importAuDemarrage = true;
+
+    /**
+     * Nombre d'employés accumulés avant d'être transmis au consommateur en mode streaming,
+     * c'est aussi le nombre d'employés enregistrés par transaction
+     */
+    @Value("${batch.fenetre:1000}")
+    private int fenetre = 1000;
+
+    /**
+     * Nombre de threads analysant les lignes, 1 pour tout analyser sur le thread courant
+     */
+    @Value("${batch.parallelisme:1}")
+    private int parallelisme = 1;
+
+    /**
+     * Nombre de lignes confiées à la fois à un thread d'analyse
+     */
+    @Value("${batch.taille-lot:1000}")
+    private int tailleLot = 1000;
+
+    /**
+     * Nombre maximum de lots lus en attente d'être rattachés : au-delà, la lecture attend que le rattachement avance
+     */
+    @Value("${batch.pipeline.lots-en-attente:8}")
+    private int lotsEnAttente = 8;
+
+    /**
+     * Nombre de threads enregistrant les fenêtres d'employés en BDD
+     */
+    @Value("${batch.pipeline.ecrivains:1}")
+    private int ecrivains = 1;
+
+    /**
+     * Nombre maximum de fenêtres d'employés attendant un thread d'écriture : au-delà, le rattachement attend
+     * que l'écriture avance
+     */
+    @Value("${batch.pipeline.fenetres-en-attente:2}")
+    private int fenetresEnAttente = 2;
+
+    /**
+     * Si vrai, un technicien dont le manager n'a pas encore été lu est mis en attente jusqu'à la lecture du manager
+     * au lieu d'être rejeté. Seuls les techniciens toujours en attente à la fin du fichier sont en erreur.
+     */
+    @Value("${batch.rattachement-differe:false}")
+    private boolean rattachementDiffere = false;
+
+    /**
+     * Si vrai, le manager d'un technicien qui n'est pas dans le fichier est recherché en base de données
+     */
+    @Value("${batch.managers-en-base:true}")
+    private boolean managersEnBase = true;
+
+    /**
+     * Nombre maximum de managers de la base conservés en cache pendant un import
+     */
+    @Value("${batch.cache-managers:10000}")
+    private int tailleCacheManagers = 10000;
+
+    /**
+     * Si vrai, un point de reprise est enregistré après chaque fenêtre d'employés enregistrée, et un import
+     * interrompu reprend à ce point lorsqu'il est relancé sur le même fichier
+     */
+    @Value("${batch.reprise.active:false}")
+    private boolean repriseActive = false;
+
+    @Value("${batch.reprise.repertoire:checkpoints}")
+    private String repertoireReprise = "checkpoints";
+
+    /**
+     * Si vrai, les lignes rejetées sont écrites, avec leur numéro et le code de l'erreur, dans un fichier CSV
+     * du répertoire des rejets nommé d'après le fichier importé
+     */
+    @Value("${batch.rejets.actif:false}")
+    private boolean rejetsActifs = false;
+
+    @Value("${batch.rejets.repertoire:rejets}")
+    private String repertoireRejets = "rejets";
+
+    /**
+     * Si faux, les lignes rejetées ne sont plus affichées dans les logs, seulement écrites dans le fichier de rejets
+     */
+    @Value("${batch.rejets.journaliser:true}")
+    private boolean journaliserRejets = true;
+
+    /**
+     * Nombre maximum de lignes en erreur avant l'interruption de l'import, -1 pour ne pas limiter
+     */
+    @Value("${batch.budget-erreurs.max:-1}")
+    private long maxErreurs = BudgetErreurs.SANS_LIMITE;
+
+    /**
+     * Pourcentage maximum de lignes en erreur avant l'interruption de l'import, -1 pour ne pas limiter.
+     * Il n'est contrôlé qu'à partir de batch.budget-erreurs.lignes-min lignes traitées.
+     */
+    @Value("${batch.budget-erreurs.pourcentage:-1}")
+    private double pourcentageMaxErreurs = BudgetErreurs.SANS_LIMITE;
+
+    @Value("${batch.budget-erreurs.lignes-min:1000}")
+    private long lignesMinBudgetErreurs = 1000;
+
+    /**
+     * Si vrai, l'import est différentiel : seuls les employés nouveaux ou dont la ligne a changé depuis l'import
+     * précédent sont enregistrés (voir sql/employe_delta.sql)
+     */
+    @Value("${batch.delta.actif:false}")
+    private boolean deltaActif = false;
+
+    /**
+     * En import différentiel, si vrai, les employés de la base absents du fichier sont supprimés :
+     * le fichier doit alors contenir tous les employés
+     */
+    @Value("${batch.delta.supprimer-absents:false}")
+    private boolean supprimerAbsents = false;
+
+    /**
+     * Si vrai, au lieu d'importer un seul fichier, l'application reste démarrée et importe chaque fichier déposé dans
+     * le répertoire de dépôt, puis le déplace dans le répertoire des fichiers traités ou en échec
+     */
+    @Value("${batch.surveillance.actif:false}")
+    private boolean surveillanceActive = false;
+
+    @Value("${batch.surveillance.repertoire:depot}")
+    private String repertoireDepot = "depot";
+
+    @Value("${batch.surveillance.repertoire-traites:depot-traites}")
+    private String repertoireTraites = "depot-traites";
+
+    @Value("${batch.surveillance.repertoire-echecs:depot-echecs}")
+    private String repertoireEchecs = "depot-echecs";
+
+    /**
+     * Nombre maximum de fichiers importés en même temps en mode surveillance, chacun étant analysé
+     * sur {@link #parallelisme} threads
+     */
+    @Value("${batch.surveillance.parallelisme:2}")
+    private int parallelismeFichiers = 2;
+
+    private final EmployeParser employeParser = new EmployeParser();
+
+    //Index des managers lus par matricule, pour rattacher les techniciens en temps constant
+    private Map<String, Manager> managers = new HashMap<>();
+
+    //Techniciens en attente de leur manager par matricule du manager, en mode rattachement différé
+    private Map<String, List<LigneEmploye>> techniciensEnAttente = new HashMap<>();
+
+    //Matricules des employés acceptés dans le fichier en cours, pour rejeter les doublons. Après une reprise, seuls
+    //les doublons de lignes lues depuis le point de reprise sont détectés
+    private final MatriculesLus matriculesLus = new MatriculesLus();
+
+    //Managers de la base de données, null si la recherche en base est désactivée
+    private ManagerCache managerCache;
+
+    //Point de reprise de l'import en cours et empreinte du fichier, null si la reprise est désactivée
+    private Path fichierCheckpoint;
+
+    private String empreinte;
+
+    //Fichier des lignes rejetées de l'import en cours, null si désactivé
+    private FichierRejets fichierRejets;
+
+    private BudgetErreurs budgetErreurs;
+
+    //Import différentiel en cours, null pour un import complet
+    private ImportDelta importDelta;
+
+    //Vrai si le dernier fichier a été lu jusqu'à la fin sans erreur d'entrée/sortie
+    private boolean lectureTerminee;
+
+    //Vrai si le dernier fichier a été lu en entier, depuis sa première ligne
+    private boolean lectureComplete;
+
+    //Métriques de l'import en cours
+    private MetriquesImport metriques;
+
+    //Étapes du pipeline de l'import en cours
+    private EtapePipeline etapeLecture;
+
+    private EtapePipeline etapeAnalyse;
+
+    private EtapePipeline etapeRattachement;
+
+    private EtapePipeline etapeEcriture;
+
+    //Écriture des fenêtres de l'import en cours : threads, places libres, fenêtres contenant des managers en cours
+    //d'écriture, enregistrement des points de reprise dans l'ordre des fenêtres et premier échec d'une fenêtre
+    private ExecutorService executorEcriture;
+
+    private Semaphore fenetresLibres;
+
+    private final Deque<FenetreEnEcriture> fenetresEnEcriture = new ArrayDeque<>();
+
+    private CompletableFuture<Void> ecritures;
+
+    private final AtomicReference<Throwable> echecEcriture = new AtomicReference<>();
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
 
     @Override
     public void run(String... strings) throws Exception {
-        String fileName = "employes.csv";
-        readFile(fileName);
-        //readFile(strings[0]);
+        if (surveillanceActive) {
+            surveiller();
+            return;
+        }
+        if (!importAuDemarrage) {
+            return;
+        }
+        //Le fichier à importer est le premier argument qui n'est pas une option Spring (--...), employes.csv à défaut
+        String fileName = Arrays.stream(strings).filter(s -> !s.startsWith("--")).findFirst().orElse("employes.csv");
+        importer(fileName);
     }
 
     /**
-     * Méthode qui lit le fichier CSV en paramètre afin d'intégrer son contenu en BDD
-     * @param fileName Le nom du fichier (à mettre dans src/main/resources)
-     * @return une liste contenant les employés à insérer en BDD ou null si le fichier n'a pas pu être le
+     * Méthode qui importe en continu les fichiers déposés dans le répertoire de dépôt, jusqu'à l'arrêt de l'application.
+     * Chaque fichier est importé par une nouvelle instance, avec son propre état d'import.
+     * @throws IOException si le répertoire ne peut pas être surveillé
      */
-    public List<Employe> readFile(String fileName){
-        Stream<String> stream;
-        logger.info("lecture du fichier : " + fileName);
-        try{
-            stream = Files.lines(Paths.get(new ClassPathResource(fileName).getURI()));
-        }catch (IOException e){
-            logger.error("problème dans l'ouverture du fichier" + fileName);
-            return new ArrayList<>();
+    private void surveiller() throws IOException {
+        try (RepertoireDepot depot = new RepertoireDepot(Paths.get(repertoireDepot), Paths.get(repertoireTraites),
+                Paths.get(repertoireEchecs), parallelismeFichiers, f -> importeurs.getObject().importer(f.toString()))) {
+            depot.surveiller();
         }
+    }
 
-        List<String> lignes = stream.collect(Collectors.toList());
-        logger.info(lignes.size()+"lignes lues");
-
-        for(int i = 0; i < lignes.size(); i++){
-            try {
-                processLine(lignes.get(i));
-            } catch (BatchException e) {
-                //? afficher le logger error
-                logger.error("Ligne " + (i+1) + " : " + e.getMessage() + " => " + lignes.get(i));
+    /**
+     * Méthode qui importe un fichier en BDD, de façon différentielle si l'import différentiel est actif
+     * @param fileName Le chemin du fichier, ou son nom dans le classpath (src/main/resources)
+     * @return vrai si le fichier a été lu jusqu'à la fin
+     * @throws ImportInterrompuException si le budget d'erreurs est dépassé
+     */
+    public boolean importer(String fileName) {
+        try {
+            if (deltaActif) {
+                importerDelta(fileName);
+            } else {
+                readFile(fileName, this::traiterFenetre);
+            }
+        } finally {
+            if (statistiquesSalaires != null) {
+                statistiquesSalaires.invalider();
             }
         }
-        return employes;
+        return lectureTerminee;
     }
 
     /**
-     * Méthode qui regarde le premier caractère de la ligne et appelle la bonne méthode de création d'employé
-     * @param ligne la ligne à analyser
-     * @throws BatchException si le type d'employé n'a pas été reconnu
+     * Méthode qui importe un fichier en mode différentiel, supprime si besoin les employés absents du fichier
+     * et affiche le bilan de l'import
+     * @param fileName Le chemin du fichier, ou son nom dans le classpath (src/main/resources)
      */
-    private void processLine(String ligne) throws BatchException {
-        //TODO
-        switch (ligne.substring(0,1)){
-            case "T":
-                processTechnicien(ligne);
-                break;
-            case "M":
-                processManager(ligne);
-                break;
-            case "C":
-                processCommercial(ligne);
-                break;
-            default:
-            throw new BatchException("Type d'employé inconnu : " + ligne);
+    private void importerDelta(String fileName) {
+        importDelta = new ImportDelta(employeBatchWriter.chargerEtats());
+        try {
+            readFile(fileName, this::traiterFenetreDelta);
+            if (supprimerAbsents && lectureComplete) {
+                List<Long> absents = importDelta.absents();
+                long supprimes = 0;
+                for (int i = 0; i < absents.size(); i += fenetre) {
+                    supprimes += employeBatchWriter.supprimer(absents.subList(i, Math.min(i + fenetre, absents.size())));
+                }
+                importDelta.setNbSupprimes(supprimes);
+            } else if (supprimerAbsents) {
+                logger.warn("les employés absents du fichier ne sont pas supprimés car le fichier n'a pas été lu en entier par cet import");
+            }
+            logger.info("import différentiel : " + importDelta);
+        } finally {
+            importDelta = null;
         }
     }
 
-    //factorisation des champs communs aux fonction processEmploye, processManager, processCommercial
-    public void processEmploye(String[] fields, Employe emp) throws BatchException{
-
+    /**
+     * Méthode qui lit le fichier CSV en paramètre afin d'intégrer son contenu en BDD
+     * Les fenêtres sont ajoutées à la liste par un seul thread d'écriture, quel que soit batch.pipeline.ecrivains :
+     * les employés sont donc dans l'ordre du fichier (un technicien mis en attente de son manager suit le manager).
+     * @param fileName Le chemin du fichier, ou son nom dans le classpath (src/main/resources)
+     * @return une liste contenant les employés à insérer en BDD ou null si le fichier n'a pas pu être le
+     */
+    public List<Employe> readFile(String fileName){
+        List<Employe> employes = new ArrayList<>();
+        int ecrivainsConfigures = ecrivains;
+        ecrivains = 1;
+        try {
+            readFile(fileName, employes::addAll);
+        } finally {
+            ecrivains = ecrivainsConfigures;
+        }
+        return employes;
+    }
 
-        //
-        if (!fields[0].matches(REGEX_MATRICULE)){
-            throw new BatchException("La chaîne " + fields[0] + " ne respecte pas l'expression régulière " + REGEX_MATRICULE);
+    /**
+     * Méthode qui lit le fichier CSV ligne par ligne sans le charger entièrement en mémoire.
+     * L'import est un pipeline de quatre étapes reliées par des files bornées, chaque étape attendant que la suivante
+     * ait de la place avant de continuer :
+     * <ul>
+     *     <li>lecture : le thread appelant repère les fins de ligne et découpe le fichier en lots de {@link #tailleLot} lignes</li>
+     *     <li>analyse : les lots sont analysés sur {@link #parallelisme} threads (sur le thread de lecture si 1)</li>
+     *     <li>rattachement : un thread prend les lots dans l'ordre du fichier, rattache les techniciens et signale
+     *     les erreurs, le résultat est donc identique à une lecture séquentielle. Au plus {@link #lotsEnAttente} lots
+     *     attendent d'être rattachés.</li>
+     *     <li>écriture : les employés valides sont transmis au consommateur par fenêtres de {@link #fenetre} éléments
+     *     (une fenêtre peut dépasser cette taille de l'équipe d'un manager en mode rattachement différé) sur
+     *     {@link #ecrivains} threads, au plus {@link #fenetresEnAttente} fenêtres attendant un thread</li>
+     * </ul>
+     * Le bilan de chaque étape est affiché à la fin de l'import pour repérer l'étape qui limite le débit.
+     * Si la reprise est active, un point de reprise est enregistré dès qu'une fenêtre et toutes les précédentes sont
+     * enregistrées, et la lecture commence au dernier point de reprise.
+     * Les lignes rejetées sont affichées et/ou écrites dans le fichier de rejets ; l'import est interrompu dès que
+     * le budget d'erreurs est dépassé. Les fenêtres déjà transmises sont enregistrées avant la fin de la méthode,
+     * même si l'import est interrompu.
+     * @param fileName Le chemin du fichier, ou son nom dans le classpath (src/main/resources)
+     * @param consommateur le traitement à appliquer à chaque fenêtre d'employés
+     * @return le nombre de lignes lues
+     * @throws ImportInterrompuException si le budget d'erreurs est dépassé
+     */
+    public long readFile(String fileName, Consumer<List<Employe>> consommateur){
+        logger.info("lecture du fichier : " + fileName);
+        managers.clear();
+        techniciensEnAttente.clear();
+        matriculesLus.vider();
+        managerCache = managersEnBase ? new ManagerCache(managerRepository, tailleCacheManagers) : null;
+        budgetErreurs = new BudgetErreurs(maxErreurs, pourcentageMaxErreurs, lignesMinBudgetErreurs);
+        lectureTerminee = false;
+        lectureComplete = false;
+        metriques = new MetriquesImport(fileName);
+        employeParser.setMetriques(metriques);
+        long numLigne = 0;
+        long premiereLigne = 0;
+        long debutLecture = System.nanoTime();
+        //Octets lus dans le fichier, compressés pour un fichier compressé
+        long octetsLus = 0;
+        Compression compression = Compression.AUCUNE;
+        ExecutorService executor = parallelisme > 1 ? Executors.newFixedThreadPool(parallelisme) : null;
+        ExecutorService rattacheur = Executors.newSingleThreadExecutor();
+        ouvrirEcritures();
+        etapeLecture = new EtapePipeline("lecture", "lignes", 1, 0);
+        etapeAnalyse = new EtapePipeline("analyse", "lignes", parallelisme, 0);
+        etapeRattachement = new EtapePipeline("rattachement", "lignes", 1, lotsEnAttente);
+        etapeEcriture = new EtapePipeline("écriture", "employés", ecrivains, fenetresEnAttente);
+        try {
+            Path fichier = resoudre(fileName);
+            Checkpoint checkpoint = reprendre(fichier);
+            if (checkpoint != null) {
+                numLigne = checkpoint.getNumLigne();
+                premiereLigne = numLigne;
+            }
+            try (FileChannel channel = FileChannel.open(fichier, StandardOpenOption.READ)) {
+                compression = Compression.detecter(channel);
+                long positionDepart = checkpoint == null ? 0 : checkpoint.getPosition();
+                try (SourceLignes lecteur = ouvrirLecteur(channel, compression, positionDepart);
+                     FichierRejets rejets = ouvrirRejets(fichier, checkpoint != null)) {
+                    fichierRejets = rejets;
+                    //En parallèle, chaque thread d'analyse décode lui-même les lignes de son lot, sauf pour un fichier
+                    //compressé qui ne peut être décompressé que dans l'ordre
+                    boolean decoder = executor == null || compression != Compression.AUCUNE;
+                    BlockingQueue<CompletableFuture<List<LigneEmploye>>> lots = new ArrayBlockingQueue<>(lotsEnAttente);
+                    CompletableFuture<Void> rattachement = CompletableFuture.runAsync(() -> rattacherLots(lots, consommateur), rattacheur);
+                    try {
+                        LotLignes lot = new LotLignes(numLigne + 1, lecteur.getPosition(), tailleLot);
+                        long debutLot = System.nanoTime();
+                        String ligne = null;
+                        //La lecture s'arrête au plus tôt si le rattachement est interrompu
+                        while (!rattachement.isDone() && (decoder ? (ligne = lecteur.lireLigne()) != null : lecteur.passerLigne())) {
+                            numLigne++;
+                            lot.ajouter(ligne, lecteur.getPosition());
+                            if (lot.getNbLignes() >= tailleLot) {
+                                metriques.latence(PhaseImport.LECTURE, debutLot);
+                                envoyer(lots, analyserLot(executor, channel, lot), rattachement);
+                                etapeLecture.traite(debutLot, lot.getNbLignes());
+                                lot = new LotLignes(numLigne + 1, lecteur.getPosition(), tailleLot);
+                                debutLot = System.nanoTime();
+                            }
+                        }
+                        if (lot.getNbLignes() > 0) {
+                            metriques.latence(PhaseImport.LECTURE, debutLot);
+                            envoyer(lots, analyserLot(executor, channel, lot), rattachement);
+                            etapeLecture.traite(debutLot, lot.getNbLignes());
+                        }
+                        envoyer(lots, FIN_LOTS, rattachement);
+                        attendre(rattachement);
+                    } finally {
+                        arreter(rattacheur);
+                    }
+                    octetsLus = compression == Compression.AUCUNE ? lecteur.getPosition() - positionDepart : channel.position();
+                }
+            }
+            supprimerCheckpoint();
+            lectureTerminee = true;
+            lectureComplete = premiereLigne == 0;
+        } catch (IOException | UncheckedIOException e){
+            //L'erreur peut survenir à l'ouverture, pendant la lecture ou la décompression, ou à l'écriture des rejets
+            logger.error("problème d'entrée/sortie pendant l'import du fichier " + fileName + " après " + numLigne
+                    + " lignes lues : " + e.getMessage(), e);
+            return numLigne;
+        } catch (ImportInterrompuException e) {
+            logger.error("import du fichier " + fileName + " interrompu : " + e.getMessage());
+            throw e;
+        } finally {
+            fichierRejets = null;
+            if (!lectureTerminee) {
+                metriques.abandonner();
+            }
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            rattacheur.shutdownNow();
+            executorEcriture.shutdownNow();
         }
-        if (!fields[1].matches(REGEX_NOM)){
-            throw new BatchException(fields[1] + " n'est pas un nom valide ");
+        long duree = System.nanoTime() - debutLecture;
+        logger.info(numLigne+"lignes lues");
+        logDebit(fileName, compression, numLigne - premiereLigne, octetsLus, duree);
+        for (EtapePipeline etape : Arrays.asList(etapeLecture, etapeAnalyse, etapeRattachement, etapeEcriture)) {
+            logger.info(etape.bilan(duree));
         }
-        if (!fields[2].matches(REGEX_PRENOM)){
-            throw new BatchException(fields[2] + " n'est pas un prénom valide ");
+        metriques.terminer(numLigne - premiereLigne, octetsLus);
+        logger.info(metriques.bilan());
+        if (metriquesBatch != null) {
+            metriquesBatch.enregistrer(metriques);
         }
+        return numLigne;
+    }
 
-        LocalDate date;
+    /**
+     * Méthode qui remet un lot à l'étape de rattachement, en attendant qu'il y ait de la place dans sa file
+     * @param lots la file des lots à rattacher
+     * @param lot le lot en cours d'analyse
+     * @param rattachement l'étape de rattachement, le lot est abandonné si elle est arrêtée
+     */
+    private void envoyer(BlockingQueue<CompletableFuture<List<LigneEmploye>>> lots, CompletableFuture<List<LigneEmploye>> lot,
+                         CompletableFuture<Void> rattachement) {
+        long debut = System.nanoTime();
         try {
-            date = (DateTimeFormat.forPattern("dd/MM/yyyy").parseLocalDate(fields[3]));
-        }catch(Exception e){
-            throw new BatchException(fields[3] + " ne respecte pas le format de date dd/MM/yyyy");
+            while (!lots.offer(lot, ATTENTE_FILE_MS, TimeUnit.MILLISECONDS)) {
+                if (rattachement.isDone()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportInterrompuException("lecture du fichier interrompue");
         }
-        Double salaire;
+        etapeLecture.bloque(debut);
+        etapeRattachement.entree();
+    }
+
+    /**
+     * Étape de rattachement : prend les lots analysés dans l'ordre du fichier jusqu'au dernier, transmet les fenêtres
+     * d'employés à l'étape d'écriture, puis attend que toutes les fenêtres soient enregistrées
+     * @param lots la file des lots à rattacher
+     * @param consommateur le traitement à appliquer à chaque fenêtre d'employés
+     * @throws ImportInterrompuException si le budget d'erreurs est dépassé
+     */
+    private void rattacherLots(BlockingQueue<CompletableFuture<List<LigneEmploye>>> lots, Consumer<List<Employe>> consommateur) {
+        List<Employe> employes = new ArrayList<>(fenetre);
         try {
-            salaire = Double.parseDouble(fields[4]);
+            CompletableFuture<List<LigneEmploye>> lot;
+            while ((lot = prendre(lots)) != FIN_LOTS) {
+                etapeRattachement.sortie();
+                List<LigneEmploye> lignes = attendre(lot);
+                long debut = System.nanoTime();
+                long bloque = etapeRattachement.getTempsBloque();
+                fusionnerLot(lignes, employes, consommateur);
+                etapeRattachement.traite(debut, lignes.size());
+                //Le temps passé à attendre l'écriture ne compte pas dans la durée du rattachement
+                metriques.duree(PhaseImport.RATTACHEMENT, System.nanoTime() - debut - (etapeRattachement.getTempsBloque() - bloque));
+            }
+            signalerTechniciensEnAttente();
+            if (!employes.isEmpty()) {
+                ecrire(employes, null, consommateur);
+            }
+        } finally {
+            attendreEcritures();
         }
-        catch (Exception e){
-            throw new BatchException(fields[4] + " n'est pas un nombre valide pour un salaire " );
+        verifierEcritures();
+    }
+
+    private CompletableFuture<List<LigneEmploye>> prendre(BlockingQueue<CompletableFuture<List<LigneEmploye>>> lots) {
+        try {
+            return lots.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportInterrompuException("rattachement des lignes interrompu");
         }
+    }
 
+    //Arrête un thread de l'import et attend qu'il se termine
+    private void arreter(ExecutorService executorService) {
+        executorService.shutdownNow();
+        try {
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        emp.setMatricule(fields[0]);
-        emp.setNom(fields[1]);
-        emp.setPrenom(fields[2]);
-        emp.setDateEmbauche(date);
-        emp.setSalaire(salaire);
+    private void ouvrirEcritures() {
+        executorEcriture = Executors.newFixedThreadPool(ecrivains);
+        fenetresLibres = new Semaphore(ecrivains + fenetresEnAttente);
+        fenetresEnEcriture.clear();
+        ecritures = CompletableFuture.completedFuture(null);
+        echecEcriture.set(null);
     }
+
     /**
-     * Méthode qui crée un Commercial à partir d'une ligne contenant les informations d'un commercial et l'ajoute dans la liste globale des employés
-     * @param ligneCommercial la ligne contenant les infos du commercial à intégrer
-     * @throws BatchException s'il y a un problème sur cette ligne
+     * Méthode qui transmet une fenêtre d'employés à l'étape d'écriture, en attendant qu'une place se libère si trop de
+     * fenêtres attendent déjà. Avec plusieurs threads d'écriture, la fenêtre attend l'enregistrement des fenêtres
+     * contenant les managers de ses techniciens. Le point de reprise de la fenêtre est enregistré lorsque la fenêtre
+     * et toutes les précédentes sont enregistrées.
+     * @param employes la fenêtre d'employés
+     * @param derniereLigne la dernière ligne de la fenêtre, null pour la dernière fenêtre du fichier
+     * @param consommateur le traitement à appliquer à la fenêtre
      */
-    private void processCommercial(String ligneCommercial) throws BatchException {
-        //Contrôle la taille de la ligne rentrée
+    private void ecrire(List<Employe> employes, LigneEmploye derniereLigne, Consumer<List<Employe>> consommateur) {
+        long debut = System.nanoTime();
+        fenetresLibres.acquireUninterruptibly();
+        etapeRattachement.bloque(debut);
+        verifierEcritures();
+        Checkpoint checkpoint = derniereLigne == null || fichierCheckpoint == null ? null
+                : new Checkpoint(empreinte, derniereLigne.getNumero(), derniereLigne.getFin(), lignesEnAttente());
+        MetriquesImport mesures = metriques;
+        etapeEcriture.entree();
+        CompletableFuture<Void> ecriture = CompletableFuture.allOf(dependances(employes)).thenRunAsync(() -> {
+            etapeEcriture.sortie();
+            //Après l'échec d'une fenêtre, les suivantes ne sont plus enregistrées
+            if (echecEcriture.get() != null) {
+                throw new CancellationException();
+            }
+            long debutEcriture = System.nanoTime();
+            consommateur.accept(employes);
+            etapeEcriture.traite(debutEcriture, employes.size());
+            mesures.latence(PhaseImport.ECRITURE, debutEcriture);
+            mesures.employesEnregistres(employes.size());
+        }, executorEcriture);
+        ecriture.whenComplete((resultat, e) -> {
+            if (e != null) {
+                echecEcriture.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e);
+            }
+            fenetresLibres.release();
+        });
+        if (ecrivains > 1) {
+            fenetresEnEcriture.add(new FenetreEnEcriture(employes, ecriture));
+        }
+        ecritures = CompletableFuture.allOf(ecritures, ecriture).thenRun(() -> enregistrerCheckpoint(checkpoint));
+    }
 
-        String[] commercialFields = ligneCommercial.split(",");
-        Commercial c = new Commercial();
-        if (commercialFields.length != NB_CHAMPS_COMMERCIAL){
-            throw new BatchException("La ligne manager ne contient pas " + NB_CHAMPS_COMMERCIAL + " éléments mais " + commercialFields.length + "  => " + ligneCommercial);
+    /**
+     * @param employes une fenêtre d'employés
+     * @return les écritures en cours des fenêtres contenant les managers des techniciens de la fenêtre
+     */
+    private CompletableFuture<?>[] dependances(List<Employe> employes) {
+        fenetresEnEcriture.removeIf(f -> f.ecriture.isDone());
+        List<CompletableFuture<Void>> dependances = new ArrayList<>();
+        for (FenetreEnEcriture precedente : fenetresEnEcriture) {
+            if (employes.stream().anyMatch(e -> e instanceof Technicien && precedente.managers.contains(((Technicien) e).getManager()))) {
+                dependances.add(precedente.ecriture);
+            }
         }
+        return dependances.toArray(new CompletableFuture<?>[0]);
+    }
 
-        processEmploye(commercialFields, c);
-        //contrôle du CA
-        Double ca;
-        try {
-            ca = Double.parseDouble(commercialFields[5]);
-        } catch (Exception e) {
-            throw new BatchException("Le chiffre d'affaire du commercial est incorrect : " + commercialFields[5] + " ");
+    //Attend que les fenêtres transmises, et leurs points de reprise, soient enregistrés, même en cas d'échec
+    private void attendreEcritures() {
+        int places = ecrivains + fenetresEnAttente;
+        fenetresLibres.acquireUninterruptibly(places);
+        fenetresLibres.release(places);
+        ecritures.handle((resultat, e) -> null).join();
+    }
+
+    //Relève l'exception de la première fenêtre dont l'enregistrement a échoué
+    private void verifierEcritures() {
+        Throwable echec = echecEcriture.get();
+        if (echec instanceof RuntimeException) {
+            throw (RuntimeException) echec;
         }
-        //Controle de l'indice de performance.0
-        Integer perf;
-        try {
-            perf = Integer.parseInt(commercialFields[6]);
+        if (echec instanceof Error) {
+            throw (Error) echec;
         }
-        catch (Exception e){
-            throw new BatchException("La performance du commercial est incorrecte : " + commercialFields[6] + " ");
+        if (echec != null) {
+            throw new CompletionException(echec);
         }
+    }
 
-        //création du commercial
-        c.setCaAnnuel(ca);
-        c.setPerformance(perf);
-        employes.add(c);
+    /**
+     * Méthode qui ouvre la lecture du fichier, en le décompressant à la volée s'il est compressé
+     * @param channel le fichier
+     * @param compression le format de compression du fichier
+     * @param position la position en octets, dans le contenu décompressé, de la première ligne à lire
+     * @return le lecteur de lignes
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    private SourceLignes ouvrirLecteur(FileChannel channel, Compression compression, long position) throws IOException {
+        if (compression == Compression.AUCUNE) {
+            return new LecteurLignes(channel, position, Long.MAX_VALUE);
+        }
+        logger.info("décompression à la volée du fichier (" + compression + ")");
+        return new LecteurFlux(compression.decompresser(channel), position);
+    }
+
+    //Débit de lecture, en octets du fichier (compressés le cas échéant) et en lignes, pour comparer les formats de fichier
+    private void logDebit(String fileName, Compression compression, long nbLignes, long octets, long duree) {
+        double secondes = Math.max(duree, 1) / 1e9;
+        logger.info(String.format(Locale.ROOT, "%s (%s) : %d lignes, %.1f Mo lus en %d ms, soit %.0f lignes/s et %.1f Mo/s",
+                fileName, compression, nbLignes, octets / 1e6, duree / 1_000_000, nbLignes / secondes, octets / 1e6 / secondes));
+    }
 
+    /**
+     * Méthode qui recherche un point de reprise pour ce fichier et remet en attente les techniciens qu'il contient
+     * @param fichier le fichier à importer
+     * @return le point de reprise, ou null si la reprise est désactivée ou si le fichier doit être lu depuis le début
+     * @throws IOException si le fichier ou son point de reprise ne peut pas être lu
+     */
+    private Checkpoint reprendre(Path fichier) throws IOException {
+        fichierCheckpoint = null;
+        if (!repriseActive) {
+            return null;
+        }
+        empreinte = Checkpoint.empreinte(fichier);
+        fichierCheckpoint = Paths.get(repertoireReprise).resolve(fichier.getFileName() + ".checkpoint");
+        Checkpoint checkpoint = Checkpoint.lire(fichierCheckpoint);
+        if (checkpoint == null || !checkpoint.getEmpreinte().equals(empreinte)) {
+            return null;
+        }
+        logger.info("reprise du fichier à la ligne " + (checkpoint.getNumLigne() + 1));
+        for (LigneEmploye ligne : checkpoint.getLignesEnAttente()) {
+            LigneEmploye technicien = employeParser.parse(ligne.getNumero(), ligne.getLigne());
+            techniciensEnAttente.computeIfAbsent(technicien.getMatriculeManager(), m -> new ArrayList<>()).add(technicien);
+        }
+        return checkpoint;
+    }
 
+    /**
+     * Méthode qui ouvre le fichier de rejets de l'import
+     * @param fichier le fichier à importer
+     * @param reprise si vrai, les rejets sont ajoutés à ceux de l'import interrompu. Les rejets des lignes lues après
+     *                le dernier point de reprise peuvent alors figurer deux fois dans le fichier.
+     * @return le fichier de rejets, ou null si les rejets ne sont pas enregistrés
+     * @throws IOException si le fichier de rejets ne peut pas être créé
+     */
+    private FichierRejets ouvrirRejets(Path fichier, boolean reprise) throws IOException {
+        if (!rejetsActifs) {
+            return null;
+        }
+        return new FichierRejets(Paths.get(repertoireRejets).resolve(fichier.getFileName() + ".rejets.csv"), reprise, tailleLot);
     }
 
     /**
-     * Méthode qui crée un Manager à partir d'une ligne contenant les informations d'un manager et l'ajoute dans la liste globale des employés
-     * @param ligneManager la ligne contenant les infos du manager à intégrer
-     * @throws BatchException s'il y a un problème sur cette ligne
+     * Méthode qui enregistre le point de reprise d'une fenêtre dont les employés viennent d'être enregistrés
+     * @param checkpoint le point de reprise, null s'il n'y en a pas
      */
-    private void processManager(String ligneManager) throws BatchException {
-        //TODO
-        //Vérification du nombre de champs dans un manager
-        String[] managerField = ligneManager.split(",");
-        if (managerField.length != NB_CHAMPS_MANAGER){
-            throw new BatchException("La ligne manager ne contient pas " + NB_CHAMPS_MANAGER + " éléments mais " + managerField.length + " ");
+    private void enregistrerCheckpoint(Checkpoint checkpoint) {
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            checkpoint.ecrire(fichierCheckpoint);
+        } catch (IOException e) {
+            logger.error("problème dans l'écriture du point de reprise " + fichierCheckpoint);
         }
+    }
 
-        //création du manager
-        Manager m= new Manager();
-        processEmploye(managerField , m);
-        employes.add(m);
+    private void supprimerCheckpoint() throws IOException {
+        if (fichierCheckpoint != null) {
+            Files.deleteIfExists(fichierCheckpoint);
+        }
     }
 
     /**
-     * Méthode qui crée un Technicien à partir d'une ligne contenant les informations d'un technicien et l'ajoute dans la liste globale des employés
-     * @param ligneTechnicien la ligne contenant les infos du technicien à intégrer
-     * @throws BatchException s'il y a un problème sur cette ligne
+     * Méthode qui cherche le fichier à importer sur le disque, puis à défaut dans le classpath
+     * @param fileName le chemin du fichier, ou son nom dans le classpath
+     * @return le fichier
+     * @throws IOException si le fichier n'existe pas
      */
-    private void processTechnicien(String ligneTechnicien) throws BatchException {
-        //TODO
-        String[] technicienField = ligneTechnicien.split(",");
+    private Path resoudre(String fileName) throws IOException {
+        Path fichier = Paths.get(fileName);
+        if (Files.isRegularFile(fichier)) {
+            return fichier;
+        }
+        return Paths.get(new ClassPathResource(fileName).getURI());
+    }
 
-        //Vérification du nombre de champs pour le technicien
-        if (technicienField.length != NB_CHAMPS_TECHNICIEN){
-            throw new BatchException("La ligne technicien ne contient pas " + NB_CHAMPS_TECHNICIEN + " éléments mais " + technicienField.length + "  ");
+    /**
+     * Méthode qui lance l'analyse d'un lot de lignes, sur le thread courant si aucun executor n'est fourni
+     * @param executor les threads d'analyse ou null
+     * @param channel le fichier, dans lequel sont lues les lignes du lot si elles n'ont pas déjà été décodées
+     * @param lot le lot de lignes
+     * @return les résultats de l'analyse, dans l'ordre des lignes
+     */
+    private CompletableFuture<List<LigneEmploye>> analyserLot(ExecutorService executor, FileChannel channel, LotLignes lot) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(analyserLot(channel, lot));
         }
-        Technicien t = new Technicien();
+        return CompletableFuture.supplyAsync(() -> analyserLot(channel, lot), executor);
+    }
 
+    private List<LigneEmploye> analyserLot(FileChannel channel, LotLignes lot) {
+        long debut = System.nanoTime();
+        List<String> lignes;
+        try {
+            lignes = lot.lignes(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<LigneEmploye> resultats = new ArrayList<>(lignes.size());
+        for (int i = 0; i < lignes.size(); i++) {
+            LigneEmploye resultat = employeParser.parse(lot.getPremiereLigne() + i, lignes.get(i));
+            resultat.setFin(lot.getFin(i));
+            resultats.add(resultat);
+        }
+        etapeAnalyse.traite(debut, resultats.size());
+        return resultats;
+    }
 
-        //Vérification du grade
-        Integer grade;
+    //Attend l'analyse d'un lot ou la fin d'une étape, en relevant l'exception d'origine si elle a échoué
+    private <T> T attendre(CompletableFuture<T> tache) {
         try {
-            grade = Integer.parseInt(technicienField[5]);
+            return tache.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Méthode qui rattache les techniciens d'un lot analysé, affiche les erreurs et alimente la fenêtre d'employés
+     * @param lot les lignes analysées
+     * @param employes la fenêtre d'employés en cours
+     * @param consommateur le traitement à appliquer à chaque fenêtre pleine
+     */
+    private void fusionnerLot(List<LigneEmploye> lot, List<Employe> employes, Consumer<List<Employe>> consommateur) {
+        prechargerManagers(lot);
+        for (LigneEmploye ligne : lot) {
+            budgetErreurs.ligneTraitee();
+            fusionnerLigne(ligne, employes);
+            if (employes.size() >= fenetre) {
+                ecrire(new ArrayList<>(employes), ligne, consommateur);
+                employes.clear();
+            }
+        }
+    }
+
+    /**
+     * Méthode qui charge en une requête les managers du lot absents du fichier jusqu'ici
+     * @param lot les lignes analysées
+     */
+    private void prechargerManagers(List<LigneEmploye> lot) {
+        if (managerCache == null) {
+            return;
+        }
+        Set<String> matricules = new HashSet<>();
+        for (LigneEmploye ligne : lot) {
+            if (ligne.getMatriculeManager() != null && !managers.containsKey(ligne.getMatriculeManager())) {
+                matricules.add(ligne.getMatriculeManager());
+            }
         }
-        catch (Exception e){
-            throw new BatchException("Le grade du technicien est incorrect : " + technicienField[5] + " ");
+        managerCache.precharger(matricules);
+    }
+
+    private void fusionnerLigne(LigneEmploye ligne, List<Employe> employes) {
+        Employe employe = rattacher(ligne);
+        if (employe == null) {
+            //Ligne en erreur ou technicien en attente de son manager
+            return;
         }
-        //Vérification du manager du technicien
-        Manager manager;
-        manager = null;
-        if (!technicienField[6].matches(REGEX_MATRICULE_MANAGER)){
-            throw new BatchException("Le manager de matricule " + technicienField[6] + " n'a pas été trouvé dans le fichier ou en base de données ");
-            // RAF Gérer les M00001 qui ont été remplacé par M87654 pour avancer sur le reste
+        employes.add(employe);
+        if (employe instanceof Manager) {
+            List<LigneEmploye> equipe = techniciensEnAttente.remove(employe.getMatricule());
+            if (equipe != null) {
+                for (LigneEmploye technicien : equipe) {
+                    fusionnerLigne(technicien, employes);
+                }
+            }
         }
+    }
 
-        for (int i = 0;i < employes.size();i++) {
-            if (employes.get(i) instanceof Manager && employes.get(i).getMatricule().equals(technicienField[6])){
-                manager = (Manager) employes.get(i);
+    /**
+     * Méthode qui rattache un technicien à son manager parmi ceux déjà lus, ou à défaut ceux de la base, et mémorise
+     * les managers. Les erreurs de la ligne, l'absence du manager ou un matricule déjà accepté plus haut dans le fichier
+     * sont signalés ici.
+     * @param ligne la ligne analysée
+     * @return l'employé de la ligne, ou null si la ligne est en erreur ou si le technicien est mis en attente de son manager
+     */
+    private Employe rattacher(LigneEmploye ligne) {
+        String matriculeManager = ligne.getMatriculeManager();
+        if (matriculeManager != null) {
+            Manager manager = managers.get(matriculeManager);
+            if (manager == null && managerCache != null) {
+                manager = managerCache.get(matriculeManager);
+            }
+            if (manager == null && rattachementDiffere) {
+                techniciensEnAttente.computeIfAbsent(matriculeManager, m -> new ArrayList<>()).add(ligne);
+                return null;
+            }
+            if (manager == null) {
+                rejeter(ligne, managerIntrouvable(matriculeManager));
+                return null;
+            }
+            if (ligne.getErreur() == null) {
+                ((Technicien) ligne.getEmploye()).setManager(manager);
             }
         }
-        if (manager == null) {
-            throw new BatchException("Le manager de matricule " + technicienField[6] + " n'a pas été trouvé dans le fichier ou en base de données ");
+        if (ligne.getErreur() != null) {
+            rejeter(ligne, ligne.getErreur());
+            return null;
+        }
+        if (!matriculesLus.ajouter(ligne.getEmploye().getMatricule())) {
+            rejeter(ligne, ErreurLigne.surValeur(CodeErreur.MATRICULE_EN_DOUBLE, 0, ligne.getEmploye().getMatricule()));
+            return null;
+        }
+        if (ligne.getEmploye() instanceof Manager) {
+            managers.put(ligne.getEmploye().getMatricule(), (Manager) ligne.getEmploye());
+        }
+        return ligne.getEmploye();
+    }
+
+    /**
+     * Méthode qui affiche, dans l'ordre du fichier, une erreur pour chaque technicien dont le manager n'a jamais été lu
+     */
+    private void signalerTechniciensEnAttente() {
+        for (LigneEmploye ligne : lignesEnAttente()) {
+            rejeter(ligne, managerIntrouvable(ligne.getMatriculeManager()));
         }
+        techniciensEnAttente.clear();
+    }
 
-        //Vérification que le grade est bien compris entre 1 et 5
-        try {
-            t.setGrade(grade);
-        } catch (TechnicienException e) {
-            throw new BatchException("Le grade doit être compris entre 1 et 5 : " + technicienField[5] + " ");
+    private List<LigneEmploye> lignesEnAttente() {
+        return techniciensEnAttente.values().stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong(LigneEmploye::getNumero))
+                .collect(Collectors.toList());
+    }
+
+    private ErreurLigne managerIntrouvable(String matriculeManager) {
+        return ErreurLigne.surValeur(CodeErreur.MANAGER_INTROUVABLE, EmployeParser.CHAMP_MATRICULE_MANAGER, matriculeManager);
+    }
+
+    /**
+     * Méthode qui signale une ligne rejetée dans les logs et/ou le fichier de rejets, et la décompte du budget d'erreurs
+     * @param ligne la ligne rejetée
+     * @param erreur l'erreur de la ligne
+     * @throws ImportInterrompuException si le budget d'erreurs est dépassé
+     */
+    private void rejeter(LigneEmploye ligne, ErreurLigne erreur) {
+        if (journaliserRejets) {
+            logger.error("Ligne " + ligne.getNumero() + " : " + erreur.getMessage() + " => " + ligne.getLigne());
+        }
+        if (fichierRejets != null) {
+            fichierRejets.ajouter(ligne.getNumero(), erreur.getCode(), ligne.getLigne());
+        }
+        if (importDelta != null) {
+            //Un employé dont la ligne est rejetée n'est pas considéré comme absent du fichier
+            importDelta.conserver(ligne.getLigne().split(",", 2)[0]);
+        }
+        metriques.rejet(erreur.getCode());
+        budgetErreurs.erreur();
+        if (budgetErreurs.estDepasse()) {
+            throw new ImportInterrompuException("budget d'erreurs dépassé, " + budgetErreurs);
         }
-        processEmploye(technicienField , t);
-        t.setManager(manager);
-        employes.add(t);
     }
 
+    /**
+     * Méthode appelée pour chaque fenêtre d'employés lue par {@link #run(String...)}, qui les enregistre en BDD
+     * @param employes les employés valides de la fenêtre
+     */
+    private void traiterFenetre(List<Employe> employes) {
+        employeBatchWriter.ecrire(employes);
+        logger.debug(employes.size() + " employés enregistrés");
+    }
+
+    /**
+     * Méthode appelée pour chaque fenêtre d'employés en import différentiel, qui n'enregistre que les employés
+     * nouveaux ou modifiés
+     * @param employes les employés valides de la fenêtre
+     */
+    private void traiterFenetreDelta(List<Employe> employes) {
+        List<Employe> nouveaux = new ArrayList<>();
+        List<Employe> modifies = new ArrayList<>();
+        importDelta.classer(employes, nouveaux, modifies);
+        if (!nouveaux.isEmpty() || !modifies.isEmpty()) {
+            employeBatchWriter.ecrire(nouveaux, modifies);
+        }
+        logger.debug(nouveaux.size() + " employés insérés, " + modifies.size() + " mis à jour");
+    }
+
+    //Fenêtre en cours d'écriture et ses managers, que les fenêtres de leurs techniciens doivent attendre
+    private static class FenetreEnEcriture {
+
+        private final Set<Manager> managers = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private final CompletableFuture<Void> ecriture;
+
+        FenetreEnEcriture(List<Employe> employes, CompletableFuture<Void> ecriture) {
+            for (Employe employe : employes) {
+                if (employe instanceof Manager) {
+                    managers.add((Manager) employe);
+                }
+            }
+            this.ecriture = ecriture;
+        }
+    }
 }
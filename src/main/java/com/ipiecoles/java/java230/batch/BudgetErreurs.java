@@ -0,0 +1,67 @@
+package com.ipiecoles.java.java230.batch;
+
+/**
+ * Nombre de lignes en erreur toléré pendant un import, en valeur absolue et/ou en pourcentage des lignes traitées.
+ * Au-delà, le fichier est considéré comme corrompu et l'import doit être interrompu.
+ */
+public class BudgetErreurs {
+
+    //Valeur désactivant une limite
+    public static final int SANS_LIMITE = -1;
+
+    private final long maxErreurs;
+
+    private final double pourcentageMax;
+
+    private final long lignesMin;
+
+    private long nbLignes;
+
+    private long nbErreurs;
+
+    /**
+     * @param maxErreurs le nombre maximum de lignes en erreur, SANS_LIMITE pour ne pas limiter
+     * @param pourcentageMax le pourcentage maximum de lignes en erreur, SANS_LIMITE pour ne pas limiter
+     * @param lignesMin le nombre de lignes traitées avant de contrôler le pourcentage, pour ne pas interrompre
+     *                  l'import sur les toutes premières lignes
+     */
+    public BudgetErreurs(long maxErreurs, double pourcentageMax, long lignesMin) {
+        this.maxErreurs = maxErreurs;
+        this.pourcentageMax = pourcentageMax;
+        this.lignesMin = lignesMin;
+    }
+
+    public void ligneTraitee() {
+        nbLignes++;
+    }
+
+    public void erreur() {
+        nbErreurs++;
+    }
+
+    /**
+     * @return true si le nombre ou le pourcentage de lignes en erreur dépasse le budget
+     */
+    public boolean estDepasse() {
+        if (maxErreurs != SANS_LIMITE && nbErreurs > maxErreurs) {
+            return true;
+        }
+        return pourcentageMax != SANS_LIMITE && nbLignes >= lignesMin && nbLignes > 0
+                && nbErreurs * 100.0 / nbLignes > pourcentageMax;
+    }
+
+    public long getNbLignes() {
+        return nbLignes;
+    }
+
+    public long getNbErreurs() {
+        return nbErreurs;
+    }
+
+    @Override
+    public String toString() {
+        return nbErreurs + " lignes en erreur sur " + nbLignes + " lignes traitées (maximum : "
+                + (maxErreurs == SANS_LIMITE ? "-" : String.valueOf(maxErreurs)) + " lignes, "
+                + (pourcentageMax == SANS_LIMITE ? "-" : pourcentageMax + "%") + ")";
+    }
+}
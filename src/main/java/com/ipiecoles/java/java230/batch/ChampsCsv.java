@@ -0,0 +1,226 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.joda.time.LocalDate;
+
+import java.util.Arrays;
+
+/**
+ * Découpe une ligne CSV en champs sans créer de String[] ni de String par champ : seules les positions
+ * de début et de fin de chaque champ sont mémorisées. Les nombres et les dates sont lus directement
+ * dans la ligne, une String n'est créée que pour les champs conservés ou pour un message d'erreur.
+ * Le nombre de champs suit la règle de String.split(",") : les champs vides en fin de ligne ne comptent pas.
+ * Une instance est réutilisée d'une ligne à l'autre et ne doit pas être partagée entre plusieurs threads.
+ */
+public class ChampsCsv {
+
+    //Puissances de 10 représentées exactement par un double
+    private static final double[] PUISSANCES_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    //Au delà, la mantisse n'est plus forcément représentable exactement par un double
+    private static final int MAX_CHIFFRES_DOUBLE = 15;
+
+    private String ligne;
+
+    private int[] debuts = new int[8];
+
+    private int[] fins = new int[8];
+
+    private int nbChamps;
+
+    //Résultat de la dernière lecture d'un nombre
+    private boolean valide;
+
+    /**
+     * Méthode qui découpe une nouvelle ligne, les champs de la ligne précédente ne sont plus accessibles
+     * @param ligne la ligne à découper
+     * @return le nombre de champs, comme String.split(",").length
+     */
+    public int decouper(String ligne) {
+        this.ligne = ligne;
+        nbChamps = 0;
+        int debut = 0;
+        for (int i = 0; i <= ligne.length(); i++) {
+            if (i == ligne.length() || ligne.charAt(i) == ',') {
+                ajouterChamp(debut, i);
+                debut = i + 1;
+            }
+        }
+        //Comme String.split, on retire les champs vides en fin de ligne, sauf pour une ligne vide
+        while (nbChamps > 0 && debuts[nbChamps - 1] == fins[nbChamps - 1] && ligne.length() > 0) {
+            nbChamps--;
+        }
+        return nbChamps;
+    }
+
+    private void ajouterChamp(int debut, int fin) {
+        if (nbChamps == debuts.length) {
+            debuts = Arrays.copyOf(debuts, nbChamps * 2);
+            fins = Arrays.copyOf(fins, nbChamps * 2);
+        }
+        debuts[nbChamps] = debut;
+        fins[nbChamps] = fin;
+        nbChamps++;
+    }
+
+    public int getNbChamps() {
+        return nbChamps;
+    }
+
+    public String getLigne() {
+        return ligne;
+    }
+
+    /**
+     * @param i l'indice du champ
+     * @return la position du premier caractère du champ dans la ligne
+     */
+    public int debut(int i) {
+        return debuts[i];
+    }
+
+    /**
+     * @param i l'indice du champ
+     * @return la position suivant le dernier caractère du champ dans la ligne
+     */
+    public int fin(int i) {
+        return fins[i];
+    }
+
+    /**
+     * @param i l'indice du champ
+     * @return le champ sous forme de String
+     */
+    public String champ(int i) {
+        return ligne.substring(debuts[i], fins[i]);
+    }
+
+    /**
+     * @param i l'indice du champ
+     * @return la longueur du champ
+     */
+    public int longueur(int i) {
+        return fins[i] - debuts[i];
+    }
+
+    /**
+     * @param i l'indice du champ
+     * @param position la position du caractère dans le champ
+     * @return le caractère du champ à cette position
+     */
+    public char charAt(int i, int position) {
+        return ligne.charAt(debuts[i] + position);
+    }
+
+    /**
+     * @return true si le dernier appel à lireEntier ou lireDecimal a lu un nombre valide
+     */
+    public boolean estValide() {
+        return valide;
+    }
+
+    /**
+     * Méthode qui lit un entier avec le même résultat que Integer.parseInt, sans lever d'exception pour un champ invalide
+     * @param i l'indice du champ
+     * @return la valeur du champ, 0 si le champ n'est pas un entier (voir estValide)
+     */
+    public int lireEntier(int i) {
+        int debut = debuts[i];
+        int fin = fins[i];
+        boolean negatif = debut < fin && ligne.charAt(debut) == '-';
+        if (debut < fin && (negatif || ligne.charAt(debut) == '+')) {
+            debut++;
+        }
+        valide = debut < fin;
+        int valeur = 0;
+        for (int j = debut; j < fin && valide; j++) {
+            int chiffre = ligne.charAt(j) - '0';
+            valide = chiffre >= 0 && chiffre <= 9;
+            valeur = valeur * 10 + chiffre;
+        }
+        if (!valide) {
+            return 0;
+        }
+        //Au delà de 9 chiffres, un dépassement de capacité est possible
+        if (fin - debut > 9) {
+            try {
+                return Integer.parseInt(champ(i));
+            } catch (NumberFormatException e) {
+                valide = false;
+                return 0;
+            }
+        }
+        return negatif ? -valeur : valeur;
+    }
+
+    /**
+     * Méthode qui lit un nombre décimal avec le même résultat que Double.parseDouble, sans lever d'exception pour un
+     * champ invalide.
+     * Les nombres de la forme [-]chiffres[.chiffres] d'au plus 15 chiffres sont lus directement : la mantisse et
+     * la puissance de 10 étant exactes, une seule division donne le double correctement arrondi.
+     * Les autres formes (exposant, espaces, NaN...) sont confiées à Double.parseDouble.
+     * @param i l'indice du champ
+     * @return la valeur du champ, 0 si le champ n'est pas un nombre (voir estValide)
+     */
+    public double lireDecimal(int i) {
+        int debut = debuts[i];
+        int fin = fins[i];
+        boolean negatif = debut < fin && ligne.charAt(debut) == '-';
+        if (debut < fin && (negatif || ligne.charAt(debut) == '+')) {
+            debut++;
+        }
+        valide = true;
+        long mantisse = 0;
+        int nbChiffres = 0;
+        int nbDecimales = -1;
+        for (int j = debut; j < fin; j++) {
+            char c = ligne.charAt(j);
+            if (c >= '0' && c <= '9') {
+                mantisse = mantisse * 10 + (c - '0');
+                nbChiffres++;
+                if (nbDecimales >= 0) {
+                    nbDecimales++;
+                }
+            } else if (c == '.' && nbDecimales < 0) {
+                nbDecimales = 0;
+            } else {
+                return lireDecimalJdk(i);
+            }
+        }
+        if (nbChiffres == 0 || nbChiffres > MAX_CHIFFRES_DOUBLE) {
+            return lireDecimalJdk(i);
+        }
+        double valeur = nbDecimales > 0 ? mantisse / PUISSANCES_10[nbDecimales] : mantisse;
+        return negatif ? -valeur : valeur;
+    }
+
+    //Double.parseDouble n'accepte que des chaînes contenant un chiffre, NaN ou Infinity : les autres sont rejetées sans exception
+    private double lireDecimalJdk(int i) {
+        boolean candidat = false;
+        for (int j = debuts[i]; j < fins[i] && !candidat; j++) {
+            char c = ligne.charAt(j);
+            candidat = (c >= '0' && c <= '9') || c == 'N' || c == 'I';
+        }
+        if (candidat) {
+            try {
+                valide = true;
+                return Double.parseDouble(champ(i));
+            } catch (NumberFormatException e) {
+                //Forme invalide malgré tout, 1.2.3 par exemple
+            }
+        }
+        valide = false;
+        return 0;
+    }
+
+    /**
+     * Méthode qui lit une date au format dd/MM/yyyy sans lever d'exception pour un champ invalide, voir ParseurDate
+     * @param i l'indice du champ
+     * @return la date, null si le champ n'est pas une date valide au format dd/MM/yyyy
+     */
+    public LocalDate lireDate(int i) {
+        return ParseurDate.lire(ligne, debuts[i], fins[i]);
+    }
+}
@@ -0,0 +1,117 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Point de reprise d'un import : dernière ligne dont les employés sont enregistrés en BDD, sa position en octets
+ * dans le fichier et les techniciens lus avant cette ligne qui attendent encore leur manager.
+ * L'empreinte du fichier permet de vérifier qu'un point de reprise correspond bien au fichier à importer.
+ */
+public class Checkpoint {
+
+    //Nombre d'octets lus à la fois pour calculer l'empreinte
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private final String empreinte;
+
+    private final long numLigne;
+
+    private final long position;
+
+    private final List<LigneEmploye> lignesEnAttente;
+
+    public Checkpoint(String empreinte, long numLigne, long position, List<LigneEmploye> lignesEnAttente) {
+        this.empreinte = empreinte;
+        this.numLigne = numLigne;
+        this.position = position;
+        this.lignesEnAttente = lignesEnAttente;
+    }
+
+    /**
+     * Méthode qui calcule l'empreinte d'un fichier à partir de sa taille et d'un CRC32 de tout son contenu :
+     * un fichier de même taille modifié n'importe où, même loin après le point de reprise, a une autre empreinte et
+     * est donc relu depuis le début. Le fichier est lu une fois de plus, à la vitesse du disque.
+     * @param fichier le fichier importé
+     * @return l'empreinte du fichier
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public static String empreinte(Path fichier) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] tampon = new byte[TAILLE_TAMPON];
+        long taille = 0;
+        try (InputStream in = Files.newInputStream(fichier)) {
+            int lus;
+            while ((lus = in.read(tampon)) > 0) {
+                crc.update(tampon, 0, lus);
+                taille += lus;
+            }
+        }
+        return taille + "-" + Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Méthode qui lit un point de reprise
+     * @param fichier le fichier du point de reprise
+     * @return le point de reprise ou null s'il n'existe pas
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public static Checkpoint lire(Path fichier) throws IOException {
+        if (!Files.exists(fichier)) {
+            return null;
+        }
+        List<String> lignes = Files.readAllLines(fichier, StandardCharsets.UTF_8);
+        List<LigneEmploye> lignesEnAttente = new ArrayList<>();
+        for (String ligne : lignes.subList(3, lignes.size())) {
+            String[] champs = ligne.split(";", 2);
+            lignesEnAttente.add(new LigneEmploye(Long.parseLong(champs[0]), champs[1]));
+        }
+        return new Checkpoint(lignes.get(0), Long.parseLong(lignes.get(1)), Long.parseLong(lignes.get(2)), lignesEnAttente);
+    }
+
+    /**
+     * Méthode qui enregistre le point de reprise sur disque de manière atomique et durable
+     * @param fichier le fichier du point de reprise
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public void ecrire(Path fichier) throws IOException {
+        Files.createDirectories(fichier.toAbsolutePath().getParent());
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaire, StandardCharsets.UTF_8)) {
+            writer.write(empreinte + "\n" + numLigne + "\n" + position + "\n");
+            for (LigneEmploye ligne : lignesEnAttente) {
+                writer.write(ligne.getNumero() + ";" + ligne.getLigne() + "\n");
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporaire, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public String getEmpreinte() {
+        return empreinte;
+    }
+
+    public long getNumLigne() {
+        return numLigne;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public List<LigneEmploye> getLignesEnAttente() {
+        return lignesEnAttente;
+    }
+}
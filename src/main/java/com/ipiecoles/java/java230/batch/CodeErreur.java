@@ -0,0 +1,105 @@
+package com.ipiecoles.java.java230.batch;
+
+/**
+ * Motifs de rejet d'une ligne du fichier CSV des employés, avec le message affiché pour chacun
+ */
+public enum CodeErreur {
+
+    TYPE_INCONNU {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "Type d'employé inconnu : " + erreur.getValeur();
+        }
+    },
+    NB_CHAMPS_MANAGER {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "La ligne manager ne contient pas " + EmployeParser.NB_CHAMPS_MANAGER + " éléments mais " + erreur.getNombre() + " ";
+        }
+    },
+    NB_CHAMPS_TECHNICIEN {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "La ligne technicien ne contient pas " + EmployeParser.NB_CHAMPS_TECHNICIEN + " éléments mais " + erreur.getNombre() + "  ";
+        }
+    },
+    NB_CHAMPS_COMMERCIAL {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "La ligne manager ne contient pas " + EmployeParser.NB_CHAMPS_COMMERCIAL + " éléments mais " + erreur.getNombre() + "  => " + erreur.getValeur();
+        }
+    },
+    MATRICULE {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "La chaîne " + erreur.getValeur() + " ne respecte pas l'expression régulière " + EmployeParser.REGEX_MATRICULE;
+        }
+    },
+    NOM {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return erreur.getValeur() + " n'est pas un nom valide ";
+        }
+    },
+    PRENOM {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return erreur.getValeur() + " n'est pas un prénom valide ";
+        }
+    },
+    DATE_EMBAUCHE {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return erreur.getValeur() + " ne respecte pas le format de date " + ParseurDate.FORMAT;
+        }
+    },
+    SALAIRE {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return erreur.getValeur() + " n'est pas un nombre valide pour un salaire ";
+        }
+    },
+    CHIFFRE_AFFAIRE {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "Le chiffre d'affaire du commercial est incorrect : " + erreur.getValeur() + " ";
+        }
+    },
+    PERFORMANCE {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "La performance du commercial est incorrecte : " + erreur.getValeur() + " ";
+        }
+    },
+    GRADE {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "Le grade du technicien est incorrect : " + erreur.getValeur() + " ";
+        }
+    },
+    GRADE_HORS_LIMITES {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "Le grade doit être compris entre 1 et 5 : " + erreur.getValeur() + " ";
+        }
+    },
+    MANAGER_INTROUVABLE {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "Le manager de matricule " + erreur.getValeur() + " n'a pas été trouvé dans le fichier ou en base de données ";
+        }
+    },
+    MATRICULE_EN_DOUBLE {
+        @Override
+        String formater(ErreurLigne erreur) {
+            return "Le matricule " + erreur.getValeur() + " figure déjà sur une ligne précédente du fichier ";
+        }
+    };
+
+    /**
+     * Méthode qui construit le message de l'erreur, identique à celui des BatchException levées jusqu'ici
+     * @param erreur l'erreur à décrire
+     * @return le message
+     */
+    abstract String formater(ErreurLigne erreur);
+}
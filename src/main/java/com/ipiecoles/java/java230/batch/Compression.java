@@ -0,0 +1,72 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Format de compression d'un fichier à importer, reconnu à ses premiers octets plutôt qu'à son extension.
+ * Les fichiers compressés sont décompressés à la volée pendant la lecture, sans fichier intermédiaire.
+ */
+public enum Compression {
+
+    AUCUNE,
+    GZIP,
+    ZIP;
+
+    //Taille des buffers de lecture du fichier compressé et de décompression
+    private static final int TAILLE_BUFFER = 1024 * 1024;
+
+    /**
+     * Méthode qui reconnaît le format d'un fichier à ses premiers octets, sans modifier la position du channel
+     * @param channel le fichier
+     * @return le format de compression du fichier
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public static Compression detecter(FileChannel channel) throws IOException {
+        ByteBuffer entete = ByteBuffer.allocate(4);
+        while (entete.hasRemaining() && channel.read(entete, entete.position()) > 0) {
+            //Lecture des 4 premiers octets
+        }
+        if (entete.position() >= 2 && (entete.get(0) & 0xFF) == 0x1F && (entete.get(1) & 0xFF) == 0x8B) {
+            return GZIP;
+        }
+        if (entete.position() == 4 && entete.get(0) == 'P' && entete.get(1) == 'K' && entete.get(2) == 3 && entete.get(3) == 4) {
+            return ZIP;
+        }
+        return AUCUNE;
+    }
+
+    /**
+     * Méthode qui ouvre le contenu décompressé du fichier, le premier fichier de l'archive pour un zip
+     * @param channel le fichier compressé, lu à partir de sa position courante et fermé avec le flux
+     * @return le contenu décompressé
+     * @throws IOException si le fichier ne peut pas être lu ou si l'archive est vide
+     */
+    public InputStream decompresser(FileChannel channel) throws IOException {
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel), TAILLE_BUFFER);
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, TAILLE_BUFFER);
+            case ZIP:
+                ZipInputStream zip = new ZipInputStream(in);
+                ZipEntry entree = zip.getNextEntry();
+                while (entree != null && entree.isDirectory()) {
+                    entree = zip.getNextEntry();
+                }
+                if (entree == null) {
+                    zip.close();
+                    throw new IOException("l'archive ne contient aucun fichier");
+                }
+                return zip;
+            default:
+                return in;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Employe;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enregistre les employés importés par lots, chaque lot dans sa propre transaction.
+ * Les insertions sont regroupées en batchs JDBC (voir hibernate.jdbc.batch_size dans application.properties)
+ * et le contexte de persistance est vidé après chaque lot pour que la mémoire utilisée reste constante.
+ * Les employés doivent être fournis dans l'ordre du fichier : un manager avant les techniciens de son équipe.
+ */
+@Component
+public class EmployeBatchWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Méthode qui insère un lot d'employés en une transaction
+     * @param employes les employés à insérer
+     */
+    @Transactional
+    public void ecrire(List<Employe> employes) {
+        ecrire(employes, new ArrayList<>());
+    }
+
+    /**
+     * Méthode qui insère et met à jour un lot d'employés en une transaction. Les employés à mettre à jour, qui
+     * portent l'identifiant de la base, sont chargés en une seule requête avant d'être fusionnés : les mises à jour
+     * sont ensuite regroupées en batchs JDBC comme les insertions. Les insertions ont lieu avant la fusion, car un
+     * technicien modifié peut avoir pour manager un employé inséré dans le même lot.
+     * @param nouveaux les employés à insérer
+     * @param modifies les employés à mettre à jour
+     */
+    @Transactional
+    public void ecrire(List<Employe> nouveaux, List<Employe> modifies) {
+        for (Employe employe : nouveaux) {
+            entityManager.persist(employe);
+        }
+        if (!modifies.isEmpty()) {
+            List<Long> ids = new ArrayList<>(modifies.size());
+            for (Employe employe : modifies) {
+                ids.add(employe.getId());
+            }
+            entityManager.createQuery("select e from Employe e where e.id in :ids", Employe.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            for (Employe employe : modifies) {
+                entityManager.merge(employe);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Méthode qui charge, pour l'import différentiel, l'identifiant et l'empreinte de ligne de tous les employés
+     * de la base, sans charger les employés eux-mêmes
+     * @return l'état de la base par matricule
+     */
+    @Transactional(readOnly = true)
+    public Map<String, EtatEmploye> chargerEtats() {
+        List<Object[]> lignes = entityManager.createQuery("select e.matricule, e.id, e.empreinteLigne from Employe e", Object[].class)
+                .getResultList();
+        Map<String, EtatEmploye> etats = new HashMap<>(lignes.size() * 4 / 3 + 1);
+        for (Object[] ligne : lignes) {
+            etats.put((String) ligne[0], new EtatEmploye((Long) ligne[1], (Long) ligne[2]));
+        }
+        return etats;
+    }
+
+    /**
+     * Méthode qui supprime un lot d'employés en une transaction. Les techniciens dont le manager est supprimé
+     * perdent leur manager.
+     * @param ids les identifiants des employés à supprimer
+     * @return le nombre d'employés supprimés
+     */
+    @Transactional
+    public int supprimer(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        entityManager.createNativeQuery("UPDATE Technicien SET manager_id = NULL WHERE manager_id IN (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        List<Employe> employes = entityManager.createQuery("select e from Employe e where e.id in :ids", Employe.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        for (Employe employe : employes) {
+            entityManager.remove(employe);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return employes.size();
+    }
+}
@@ -0,0 +1,272 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.joda.time.LocalDate;
+
+/**
+ * Analyse et valide les lignes du fichier CSV des employés.
+ * Une même instance peut être utilisée par plusieurs threads, chacun disposant de son propre découpeur de champs.
+ * Le rattachement d'un technicien à son manager n'est pas fait ici car il dépend des lignes précédentes.
+ */
+public class EmployeParser {
+
+    public static final String REGEX_MATRICULE = "^[MTC][0-9]{5}$";
+    public static final String REGEX_NOM = "^[\\p{L}- ]*$";
+    public static final String REGEX_PRENOM = "^[\\p{L}- ]*$";
+    public static final int NB_CHAMPS_MANAGER = 5;
+    public static final int NB_CHAMPS_TECHNICIEN = 7;
+    public static final String REGEX_MATRICULE_MANAGER = "^M[0-9]{5}$";
+    public static final int NB_CHAMPS_COMMERCIAL = 7;
+    public static final int CHAMP_MATRICULE_MANAGER = 6;
+    private static final int GRADE_MIN = 1;
+    private static final int GRADE_MAX = 5;
+
+    //Découpeur de champs réutilisé pour toutes les lignes analysées par un même thread
+    private final ThreadLocal<ChampsCsv> champsCsv = ThreadLocal.withInitial(ChampsCsv::new);
+
+    //Métriques de l'import en cours, null si l'analyse n'est pas chronométrée
+    private volatile MetriquesImport metriques;
+
+    /**
+     * @param metriques les métriques dans lesquelles chronométrer l'analyse d'un échantillon de lignes, null pour
+     *                  ne pas chronométrer
+     */
+    public void setMetriques(MetriquesImport metriques) {
+        this.metriques = metriques;
+    }
+
+    /**
+     * Méthode qui analyse une ligne sans jamais lever d'exception : l'éventuelle erreur est portée par le résultat
+     * @param numero le numéro de la ligne dans le fichier
+     * @param ligne la ligne à analyser
+     * @return le résultat de l'analyse
+     */
+    public LigneEmploye parse(long numero, String ligne) {
+        LigneEmploye resultat = new LigneEmploye(numero, ligne);
+        MetriquesImport mesures = metriques;
+        if (mesures != null && MetriquesImport.echantillonner(numero)) {
+            resultat.setErreur(processLineChronometre(resultat, mesures));
+        } else {
+            resultat.setErreur(processLine(resultat));
+        }
+        if (resultat.getEmploye() != null) {
+            resultat.getEmploye().setEmpreinteLigne(empreinte(ligne));
+        }
+        return resultat;
+    }
+
+    /**
+     * Méthode qui calcule l'empreinte d'une ligne (FNV-1a sur 64 bits), conservée avec l'employé pour reconnaître
+     * lors de l'import suivant une ligne inchangée
+     * @param ligne la ligne du fichier
+     * @return l'empreinte de la ligne
+     */
+    public static long empreinte(String ligne) {
+        long empreinte = 0xcbf29ce484222325L;
+        for (int i = 0; i < ligne.length(); i++) {
+            empreinte ^= ligne.charAt(i);
+            empreinte *= 0x100000001b3L;
+        }
+        return empreinte;
+    }
+
+    /**
+     * Méthode qui analyse une ligne de l'échantillon chronométré. Le découpage et la lecture de la date sont mesurés
+     * à part avant l'analyse ; la validation est le temps de l'analyse hors découpage, la date étant alors déjà
+     * dans le cache de ParseurDate.
+     * @param resultat la ligne à analyser
+     * @param mesures les métriques de l'import
+     * @return l'erreur de la ligne, null si elle est valide
+     */
+    private ErreurLigne processLineChronometre(LigneEmploye resultat, MetriquesImport mesures) {
+        ChampsCsv champs = champsCsv.get();
+        long debut = System.nanoTime();
+        int nbChamps = champs.decouper(resultat.getLigne());
+        long decoupage = System.nanoTime() - debut;
+        mesures.duree(PhaseImport.DECOUPAGE, decoupage);
+        if (nbChamps > 3) {
+            long debutDate = System.nanoTime();
+            champs.lireDate(3);
+            mesures.latence(PhaseImport.DATE, debutDate);
+        }
+        long debutValidation = System.nanoTime();
+        ErreurLigne erreur = processLine(resultat);
+        mesures.duree(PhaseImport.VALIDATION, System.nanoTime() - debutValidation - decoupage);
+        return erreur;
+    }
+
+    /**
+     * Méthode qui regarde le premier caractère de la ligne et appelle la bonne méthode de création d'employé
+     * @param resultat la ligne à analyser
+     * @return l'erreur de la ligne, null si elle est valide. Le type d'employé non reconnu, ou absent sur une ligne
+     * vide, est une erreur.
+     */
+    private ErreurLigne processLine(LigneEmploye resultat) {
+        String ligne = resultat.getLigne();
+        if (ligne.isEmpty()) {
+            return ErreurLigne.surLigne(CodeErreur.TYPE_INCONNU, ligne);
+        }
+        ChampsCsv champs = champsCsv.get();
+        switch (ligne.charAt(0)){
+            case 'T':
+                return processTechnicien(ligne, champs, resultat);
+            case 'M':
+                return processManager(ligne, champs, resultat);
+            case 'C':
+                return processCommercial(ligne, champs, resultat);
+            default:
+            return ErreurLigne.surLigne(CodeErreur.TYPE_INCONNU, ligne);
+        }
+    }
+
+    /**
+     * Méthode qui contrôle les champs communs à tous les employés et les affecte à l'employé s'ils sont valides
+     * @param champs la ligne découpée
+     * @param emp l'employé à compléter
+     * @return l'erreur du premier champ invalide, null si tous les champs sont valides
+     */
+    private ErreurLigne validerEmploye(ChampsCsv champs, Employe emp) {
+        String matricule = champs.champ(0);
+        String nom = champs.champ(1);
+        String prenom = champs.champ(2);
+
+        if (!Validateurs.matricule(matricule)){
+            return ErreurLigne.surChamp(CodeErreur.MATRICULE, champs, 0);
+        }
+        if (!Validateurs.nom(nom)){
+            return ErreurLigne.surChamp(CodeErreur.NOM, champs, 1);
+        }
+        if (!Validateurs.prenom(prenom)){
+            return ErreurLigne.surChamp(CodeErreur.PRENOM, champs, 2);
+        }
+
+        LocalDate date = champs.lireDate(3);
+        if (date == null){
+            return ErreurLigne.surChamp(CodeErreur.DATE_EMBAUCHE, champs, 3);
+        }
+        double salaire = champs.lireDecimal(4);
+        if (!champs.estValide()){
+            return ErreurLigne.surChamp(CodeErreur.SALAIRE, champs, 4);
+        }
+
+
+        emp.setMatricule(matricule);
+        emp.setNom(nom);
+        emp.setPrenom(prenom);
+        emp.setDateEmbauche(date);
+        emp.setSalaire(salaire);
+        return null;
+    }
+    /**
+     * Méthode qui crée un Commercial à partir d'une ligne contenant les informations d'un commercial
+     * @param ligneCommercial la ligne contenant les infos du commercial à intégrer
+     * @param champs le découpeur de champs
+     * @param resultat le résultat à compléter avec le commercial créé
+     * @return l'erreur de la ligne, null si elle est valide
+     */
+    private ErreurLigne processCommercial(String ligneCommercial, ChampsCsv champs, LigneEmploye resultat) {
+        //Contrôle la taille de la ligne rentrée
+
+        int nbChamps = champs.decouper(ligneCommercial);
+        Commercial c = new Commercial();
+        if (nbChamps != NB_CHAMPS_COMMERCIAL){
+            return ErreurLigne.surLigne(CodeErreur.NB_CHAMPS_COMMERCIAL, ligneCommercial, nbChamps);
+        }
+
+        ErreurLigne erreur = validerEmploye(champs, c);
+        if (erreur != null) {
+            return erreur;
+        }
+        //contrôle du CA
+        double ca = champs.lireDecimal(5);
+        if (!champs.estValide()) {
+            return ErreurLigne.surChamp(CodeErreur.CHIFFRE_AFFAIRE, champs, 5);
+        }
+        //Controle de l'indice de performance.0
+        int perf = champs.lireEntier(6);
+        if (!champs.estValide()){
+            return ErreurLigne.surChamp(CodeErreur.PERFORMANCE, champs, 6);
+        }
+
+        //création du commercial
+        c.setCaAnnuel(ca);
+        c.setPerformance(perf);
+        resultat.setEmploye(c);
+        return null;
+    }
+
+    /**
+     * Méthode qui crée un Manager à partir d'une ligne contenant les informations d'un manager
+     * @param ligneManager la ligne contenant les infos du manager à intégrer
+     * @param champs le découpeur de champs
+     * @param resultat le résultat à compléter avec le manager créé
+     * @return l'erreur de la ligne, null si elle est valide
+     */
+    private ErreurLigne processManager(String ligneManager, ChampsCsv champs, LigneEmploye resultat) {
+        //Vérification du nombre de champs dans un manager
+        int nbChamps = champs.decouper(ligneManager);
+        if (nbChamps != NB_CHAMPS_MANAGER){
+            return ErreurLigne.surLigne(CodeErreur.NB_CHAMPS_MANAGER, ligneManager, nbChamps);
+        }
+
+        //création du manager
+        Manager m= new Manager();
+        ErreurLigne erreur = validerEmploye(champs, m);
+        if (erreur == null) {
+            resultat.setEmploye(m);
+        }
+        return erreur;
+    }
+
+    /**
+     * Méthode qui crée un Technicien à partir d'une ligne contenant les informations d'un technicien.
+     * Une fois le matricule du manager validé, le matricule est renseigné dans le résultat même si la suite de la
+     * ligne est en erreur : cette erreur ne doit être signalée que si le manager est trouvé lors du rattachement.
+     * @param ligneTechnicien la ligne contenant les infos du technicien à intégrer
+     * @param champs le découpeur de champs
+     * @param resultat le résultat à compléter avec le technicien créé et le matricule de son manager
+     * @return l'erreur de la ligne, null si elle est valide
+     */
+    private ErreurLigne processTechnicien(String ligneTechnicien, ChampsCsv champs, LigneEmploye resultat) {
+        int nbChamps = champs.decouper(ligneTechnicien);
+
+        //Vérification du nombre de champs pour le technicien
+        if (nbChamps != NB_CHAMPS_TECHNICIEN){
+            return ErreurLigne.surLigne(CodeErreur.NB_CHAMPS_TECHNICIEN, ligneTechnicien, nbChamps);
+        }
+        Technicien t = new Technicien();
+
+
+        //Vérification du grade
+        int grade = champs.lireEntier(5);
+        if (!champs.estValide()){
+            return ErreurLigne.surChamp(CodeErreur.GRADE, champs, 5);
+        }
+        //Vérification du format du matricule du manager, sa recherche est faite au rattachement
+        String matriculeManager = champs.champ(CHAMP_MATRICULE_MANAGER);
+        if (!Validateurs.matriculeManager(matriculeManager)){
+            return ErreurLigne.surChamp(CodeErreur.MANAGER_INTROUVABLE, champs, CHAMP_MATRICULE_MANAGER);
+        }
+        resultat.setMatriculeManager(matriculeManager);
+
+        //Vérification que le grade est bien compris entre 1 et 5, avant setGrade qui construirait une TechnicienException
+        if (grade < GRADE_MIN || grade > GRADE_MAX) {
+            return ErreurLigne.surChamp(CodeErreur.GRADE_HORS_LIMITES, champs, 5);
+        }
+        try {
+            t.setGrade(grade);
+        } catch (TechnicienException e) {
+            return ErreurLigne.surChamp(CodeErreur.GRADE_HORS_LIMITES, champs, 5);
+        }
+        ErreurLigne erreur = validerEmploye(champs, t);
+        if (erreur == null) {
+            resultat.setEmploye(t);
+        }
+        return erreur;
+    }
+
+}
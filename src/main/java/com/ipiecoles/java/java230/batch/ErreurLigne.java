@@ -0,0 +1,113 @@
+package com.ipiecoles.java.java230.batch;
+
+/**
+ * Erreur de validation d'une ligne du fichier CSV. Contrairement à une exception, elle ne capture pas de pile
+ * d'appels : elle mémorise le motif, le champ et la position de la valeur en cause dans la ligne, et le message
+ * n'est construit que lorsqu'il est demandé.
+ */
+public final class ErreurLigne {
+
+    //Indice de champ utilisé lorsque l'erreur porte sur la ligne entière
+    public static final int LIGNE_ENTIERE = -1;
+
+    private final CodeErreur code;
+
+    private final int champ;
+
+    //La valeur en cause est texte.substring(debut, fin)
+    private final String texte;
+
+    private final int debut;
+
+    private final int fin;
+
+    //Nombre de champs de la ligne, pour les erreurs de nombre de champs
+    private final int nombre;
+
+    private String message;
+
+    private ErreurLigne(CodeErreur code, int champ, String texte, int debut, int fin, int nombre) {
+        this.code = code;
+        this.champ = champ;
+        this.texte = texte;
+        this.debut = debut;
+        this.fin = fin;
+        this.nombre = nombre;
+    }
+
+    /**
+     * @param code le motif de rejet
+     * @param ligne la ligne en cause
+     * @return une erreur portant sur la ligne entière
+     */
+    public static ErreurLigne surLigne(CodeErreur code, String ligne) {
+        return surLigne(code, ligne, 0);
+    }
+
+    /**
+     * @param code le motif de rejet
+     * @param ligne la ligne en cause
+     * @param nbChamps le nombre de champs de la ligne
+     * @return une erreur portant sur la ligne entière
+     */
+    public static ErreurLigne surLigne(CodeErreur code, String ligne, int nbChamps) {
+        return new ErreurLigne(code, LIGNE_ENTIERE, ligne, 0, ligne.length(), nbChamps);
+    }
+
+    /**
+     * @param code le motif de rejet
+     * @param champs la ligne découpée
+     * @param i l'indice du champ en cause
+     * @return une erreur portant sur le champ, sans en extraire la valeur tant que le message n'est pas demandé
+     */
+    public static ErreurLigne surChamp(CodeErreur code, ChampsCsv champs, int i) {
+        return new ErreurLigne(code, i, champs.getLigne(), champs.debut(i), champs.fin(i), champs.getNbChamps());
+    }
+
+    /**
+     * @param code le motif de rejet
+     * @param i l'indice du champ en cause
+     * @param valeur la valeur du champ
+     * @return une erreur portant sur le champ
+     */
+    public static ErreurLigne surValeur(CodeErreur code, int i, String valeur) {
+        return new ErreurLigne(code, i, valeur, 0, valeur.length(), 0);
+    }
+
+    public CodeErreur getCode() {
+        return code;
+    }
+
+    /**
+     * @return l'indice du champ en cause, ou LIGNE_ENTIERE
+     */
+    public int getChamp() {
+        return champ;
+    }
+
+    /**
+     * @return la valeur en cause, la ligne entière pour une erreur portant sur la ligne
+     */
+    public String getValeur() {
+        return texte.substring(debut, fin);
+    }
+
+    public int getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @return le message de l'erreur, construit au premier appel
+     */
+    public String getMessage() {
+        if (message == null) {
+            message = code.formater(this);
+        }
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return code + " : " + getMessage();
+    }
+}
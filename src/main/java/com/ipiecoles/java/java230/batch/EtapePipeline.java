@@ -0,0 +1,135 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures d'une étape du pipeline d'import (lecture, analyse, rattachement, écriture) : nombre d'éléments traités,
+ * temps passé à travailler et temps passé bloqué par l'étape suivante, profondeur de la file en entrée de l'étape.
+ * Une étape très occupée dont la file est pleine, alors que l'étape précédente est bloquée, est le goulet d'étranglement.
+ * Les mesures peuvent être relevées par plusieurs threads en même temps.
+ */
+public class EtapePipeline {
+
+    private final String nom;
+
+    private final String unite;
+
+    private final int nbTravailleurs;
+
+    //Capacité de la file en entrée de l'étape, 0 si l'étape n'a pas de file
+    private final int capacite;
+
+    private final LongAdder nbElements = new LongAdder();
+
+    private final LongAdder tempsActif = new LongAdder();
+
+    private final LongAdder tempsBloque = new LongAdder();
+
+    private final AtomicInteger profondeur = new AtomicInteger();
+
+    private final LongAccumulator profondeurMax = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder sommeProfondeurs = new LongAdder();
+
+    private final LongAdder nbMesures = new LongAdder();
+
+    /**
+     * @param nom le nom de l'étape
+     * @param unite le nom des éléments traités par l'étape, au pluriel
+     * @param nbTravailleurs le nombre de threads de l'étape
+     * @param capacite la capacité de la file en entrée de l'étape, 0 si l'étape n'a pas de file
+     */
+    public EtapePipeline(String nom, String unite, int nbTravailleurs, int capacite) {
+        this.nom = nom;
+        this.unite = unite;
+        this.nbTravailleurs = nbTravailleurs;
+        this.capacite = capacite;
+    }
+
+    /**
+     * Méthode qui enregistre un traitement de l'étape. Le temps passé bloqué par l'étape suivante pendant le traitement,
+     * enregistré par {@link #bloque(long)}, n'est pas compté dans l'occupation de l'étape.
+     * @param debut le début du traitement, donné par System.nanoTime()
+     * @param elements le nombre d'éléments traités
+     */
+    public void traite(long debut, long elements) {
+        tempsActif.add(System.nanoTime() - debut);
+        nbElements.add(elements);
+    }
+
+    /**
+     * Méthode qui enregistre le temps passé par l'étape à attendre de la place dans la file de l'étape suivante
+     * @param debut le début de l'attente, donné par System.nanoTime()
+     */
+    public void bloque(long debut) {
+        tempsBloque.add(System.nanoTime() - debut);
+    }
+
+    /**
+     * Méthode appelée lorsqu'un élément entre dans la file de l'étape, qui relève la profondeur de la file
+     */
+    public void entree() {
+        int valeur = profondeur.incrementAndGet();
+        profondeurMax.accumulate(valeur);
+        sommeProfondeurs.add(valeur);
+        nbMesures.increment();
+    }
+
+    /**
+     * Méthode appelée lorsqu'un élément est pris dans la file de l'étape
+     */
+    public void sortie() {
+        profondeur.decrementAndGet();
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public long getNbElements() {
+        return nbElements.sum();
+    }
+
+    public long getTempsActif() {
+        return tempsActif.sum();
+    }
+
+    public long getTempsBloque() {
+        return tempsBloque.sum();
+    }
+
+    public long getProfondeurMax() {
+        return profondeurMax.get();
+    }
+
+    /**
+     * @param duree la durée de l'import en nanosecondes
+     * @return la part du temps pendant laquelle les threads de l'étape ont travaillé sans être bloqués, entre 0 et 1
+     */
+    public double occupation(long duree) {
+        return duree <= 0 ? 0 : Math.max(0, Math.min(1, (double) (getTempsActif() - getTempsBloque()) / duree / nbTravailleurs));
+    }
+
+    /**
+     * @param duree la durée de l'import en nanosecondes
+     * @return le bilan de l'étape sur une ligne
+     */
+    public String bilan(long duree) {
+        long elements = getNbElements();
+        double debit = duree <= 0 ? 0 : elements * 1e9 / duree;
+        StringBuilder bilan = new StringBuilder(String.format(Locale.ROOT,
+                "étape %s (%d thread%s) : %d %s, %.0f %s/s, occupation %.0f %%, bloquée %d ms par l'étape suivante",
+                nom, nbTravailleurs, nbTravailleurs > 1 ? "s" : "", elements, unite, debit, unite,
+                occupation(duree) * 100, TimeUnit.NANOSECONDS.toMillis(getTempsBloque())));
+        if (capacite > 0) {
+            long mesures = nbMesures.sum();
+            bilan.append(String.format(Locale.ROOT, ", file d'entrée %.1f en moyenne, %d au maximum sur %d",
+                    mesures == 0 ? 0.0 : (double) sommeProfondeurs.sum() / mesures, getProfondeurMax(), capacite));
+        }
+        return bilan.toString();
+    }
+}
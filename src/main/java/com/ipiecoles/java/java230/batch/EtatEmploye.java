@@ -0,0 +1,36 @@
+package com.ipiecoles.java.java230.batch;
+
+/**
+ * Identifiant et empreinte de la ligne d'import d'un employé déjà présent en base, pour l'import différentiel
+ */
+public class EtatEmploye {
+
+    private final long id;
+
+    //Null pour un employé enregistré avant que les empreintes ne soient conservées
+    private final Long empreinteLigne;
+
+    //Vrai dès que l'employé a été retrouvé dans le fichier
+    private boolean vu;
+
+    public EtatEmploye(long id, Long empreinteLigne) {
+        this.id = id;
+        this.empreinteLigne = empreinteLigne;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Long getEmpreinteLigne() {
+        return empreinteLigne;
+    }
+
+    public boolean isVu() {
+        return vu;
+    }
+
+    public void setVu(boolean vu) {
+        this.vu = vu;
+    }
+}
@@ -0,0 +1,182 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fichier CSV des lignes rejetées par l'import, une ligne "numero;code;ligne" par rejet : la ligne d'origine est
+ * en dernier et peut donc contenir des ; sans être échappée.
+ * Les rejets sont regroupés par paquets écrits sur un thread dédié, le thread de l'import ne fait qu'ajouter le rejet
+ * au paquet en cours. Le nombre de paquets en attente d'écriture est borné : si l'écriture ne suit pas, l'import attend.
+ * Une instance ne doit être alimentée que par un seul thread.
+ */
+public class FichierRejets implements Closeable {
+
+    public static final String ENTETE = "numero;code;ligne";
+
+    //Nombre maximum de paquets en attente d'écriture
+    private static final int MAX_PAQUETS = 4;
+
+    private final Path fichier;
+
+    private final int taillePaquet;
+
+    private final BufferedWriter writer;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "rejets");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Semaphore paquetsDisponibles = new Semaphore(MAX_PAQUETS);
+
+    private List<Rejet> paquet;
+
+    private long nbRejets;
+
+    //Première erreur d'écriture du thread dédié, signalée au prochain ajout ou à la fermeture
+    private volatile IOException erreur;
+
+    /**
+     * @param fichier le fichier de rejets, créé avec son répertoire si besoin
+     * @param ajout si vrai, les rejets sont ajoutés à la fin du fichier existant (reprise d'un import interrompu)
+     * @param taillePaquet le nombre de rejets écrits à la fois
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    public FichierRejets(Path fichier, boolean ajout, int taillePaquet) throws IOException {
+        this.fichier = fichier;
+        this.taillePaquet = taillePaquet;
+        this.paquet = new ArrayList<>(taillePaquet);
+        if (fichier.getParent() != null) {
+            Files.createDirectories(fichier.getParent());
+        }
+        boolean entete = !ajout || !Files.exists(fichier);
+        writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                ajout ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        if (entete) {
+            writer.write(ENTETE);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Méthode qui ajoute un rejet au paquet en cours, et confie le paquet au thread d'écriture lorsqu'il est plein
+     * @param numero le numéro de la ligne dans le fichier importé
+     * @param code le motif du rejet
+     * @param ligne la ligne d'origine
+     */
+    public void ajouter(long numero, CodeErreur code, String ligne) {
+        paquet.add(new Rejet(numero, code, ligne));
+        nbRejets++;
+        if (paquet.size() >= taillePaquet) {
+            envoyer();
+        }
+    }
+
+    private void envoyer() {
+        verifier();
+        List<Rejet> rejets = paquet;
+        paquet = new ArrayList<>(taillePaquet);
+        try {
+            paquetsDisponibles.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("écriture des rejets interrompue", e);
+        }
+        executor.execute(() -> {
+            try {
+                ecrire(rejets);
+            } finally {
+                paquetsDisponibles.release();
+            }
+        });
+    }
+
+    private void ecrire(List<Rejet> rejets) {
+        if (erreur != null) {
+            return;
+        }
+        try {
+            for (Rejet rejet : rejets) {
+                writer.write(Long.toString(rejet.numero));
+                writer.write(';');
+                writer.write(rejet.code.name());
+                writer.write(';');
+                writer.write(rejet.ligne);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            erreur = e;
+        }
+    }
+
+    private void verifier() {
+        if (erreur != null) {
+            throw new UncheckedIOException("problème dans l'écriture du fichier de rejets " + fichier, erreur);
+        }
+    }
+
+    public Path getFichier() {
+        return fichier;
+    }
+
+    /**
+     * @return le nombre de rejets ajoutés depuis l'ouverture du fichier
+     */
+    public long getNbRejets() {
+        return nbRejets;
+    }
+
+    /**
+     * Méthode qui écrit les rejets en attente, attend la fin du thread d'écriture et ferme le fichier
+     * @throws IOException si un rejet n'a pas pu être écrit
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!paquet.isEmpty()) {
+                envoyer();
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (UncheckedIOException e) {
+            //Signalée ci-dessous
+        } finally {
+            executor.shutdownNow();
+            writer.close();
+        }
+        if (erreur != null) {
+            throw erreur;
+        }
+    }
+
+    private static final class Rejet {
+
+        private final long numero;
+
+        private final CodeErreur code;
+
+        private final String ligne;
+
+        private Rejet(long numero, CodeErreur code, String ligne) {
+            this.numero = numero;
+            this.code = code;
+            this.ligne = ligne;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de durées en nanosecondes, par intervalles de puissances de 2 : l'intervalle i compte les durées
+ * de [2^i, 2^(i+1)[ ns. La mémoire est fixe quel que soit le nombre de durées enregistrées et les quantiles sont
+ * approchés à un facteur 2 près, par la borne supérieure de leur intervalle.
+ * Les durées peuvent être enregistrées par plusieurs threads en même temps.
+ */
+public class HistogrammeLatence {
+
+    private static final int NB_INTERVALLES = 64;
+
+    private final AtomicLongArray intervalles = new AtomicLongArray(NB_INTERVALLES);
+
+    private final LongAdder nombre = new LongAdder();
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param duree une durée en nanosecondes
+     */
+    public void enregistrer(long duree) {
+        long valeur = Math.max(duree, 0);
+        intervalles.incrementAndGet(intervalle(valeur));
+        nombre.increment();
+        total.add(valeur);
+        max.accumulate(valeur);
+    }
+
+    private static int intervalle(long duree) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(duree, 1));
+    }
+
+    /**
+     * Méthode qui ajoute à cet histogramme les durées d'un autre histogramme
+     * @param autre l'histogramme à ajouter
+     */
+    public void ajouter(HistogrammeLatence autre) {
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            intervalles.addAndGet(i, autre.intervalles.get(i));
+        }
+        nombre.add(autre.getNombre());
+        total.add(autre.getTotal());
+        max.accumulate(autre.getMax());
+    }
+
+    public long getNombre() {
+        return nombre.sum();
+    }
+
+    /**
+     * @return la somme des durées en nanosecondes
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return la plus longue durée en nanosecondes
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return la durée moyenne en nanosecondes, 0 si aucune durée n'a été enregistrée
+     */
+    public double moyenne() {
+        long n = getNombre();
+        return n == 0 ? 0 : (double) getTotal() / n;
+    }
+
+    /**
+     * @param q le quantile, entre 0 et 1 (0.99 pour le 99e centile)
+     * @return une durée en nanosecondes supérieure ou égale au quantile, au plus deux fois plus grande, sans dépasser
+     * la plus longue durée ; 0 si aucune durée n'a été enregistrée
+     */
+    public long quantile(double q) {
+        long n = getNombre();
+        if (n == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(q * n));
+        long cumul = 0;
+        for (int i = 0; i < NB_INTERVALLES; i++) {
+            cumul += intervalles.get(i);
+            if (cumul >= rang) {
+                long borne = i == NB_INTERVALLES - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                return Math.min(borne, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d mesures, moyenne %.1f µs, p50 %.1f µs, p99 %.1f µs, max %.1f µs",
+                getNombre(), moyenne() / 1e3, quantile(0.5) / 1e3, quantile(0.99) / 1e3, getMax() / 1e3);
+    }
+}
@@ -0,0 +1,111 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Employe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Import différentiel : compare chaque employé du fichier à l'état de la base, chargé une seule fois au début de
+ * l'import, à l'aide du matricule et de l'empreinte de la ligne. Seuls les nouveaux employés sont insérés et seuls
+ * ceux dont la ligne a changé sont mis à jour ; les employés de la base absents du fichier sont repérés.
+ * Les méthodes sont synchronisées : les fenêtres sont classées par les threads d'écriture pendant que le thread de
+ * rattachement signale les lignes rejetées.
+ */
+public class ImportDelta {
+
+    private final Map<String, EtatEmploye> base;
+
+    private long nbInseres;
+
+    private long nbModifies;
+
+    private long nbInchanges;
+
+    private long nbSupprimes;
+
+    /**
+     * @param base l'état de la base, par matricule
+     */
+    public ImportDelta(Map<String, EtatEmploye> base) {
+        this.base = base;
+    }
+
+    /**
+     * Méthode qui répartit une fenêtre d'employés entre nouveaux et modifiés, les autres étant inchangés.
+     * L'identifiant de la base est affecté aux employés modifiés et inchangés : les techniciens peuvent ainsi
+     * être rattachés à un manager inchangé, qui n'est pas réenregistré.
+     * @param employes les employés de la fenêtre, dans l'ordre du fichier
+     * @param nouveaux les employés à insérer
+     * @param modifies les employés à mettre à jour
+     */
+    public synchronized void classer(List<Employe> employes, List<Employe> nouveaux, List<Employe> modifies) {
+        for (Employe employe : employes) {
+            EtatEmploye etat = base.get(employe.getMatricule());
+            if (etat == null) {
+                nouveaux.add(employe);
+                nbInseres++;
+                continue;
+            }
+            etat.setVu(true);
+            employe.setId(etat.getId());
+            if (employe.getEmpreinteLigne().equals(etat.getEmpreinteLigne())) {
+                nbInchanges++;
+            } else {
+                modifies.add(employe);
+                nbModifies++;
+            }
+        }
+    }
+
+    /**
+     * Méthode qui indique qu'un employé de la base figure dans le fichier même s'il n'est pas importé,
+     * parce que sa ligne est rejetée : il ne doit pas être supprimé
+     * @param matricule le matricule lu dans la ligne
+     */
+    public synchronized void conserver(String matricule) {
+        EtatEmploye etat = base.get(matricule);
+        if (etat != null) {
+            etat.setVu(true);
+        }
+    }
+
+    /**
+     * @return les identifiants des employés de la base qui n'ont pas été retrouvés dans le fichier
+     */
+    public synchronized List<Long> absents() {
+        List<Long> absents = new ArrayList<>();
+        for (EtatEmploye etat : base.values()) {
+            if (!etat.isVu()) {
+                absents.add(etat.getId());
+            }
+        }
+        return absents;
+    }
+
+    public synchronized void setNbSupprimes(long nbSupprimes) {
+        this.nbSupprimes = nbSupprimes;
+    }
+
+    public synchronized long getNbInseres() {
+        return nbInseres;
+    }
+
+    public synchronized long getNbModifies() {
+        return nbModifies;
+    }
+
+    public synchronized long getNbInchanges() {
+        return nbInchanges;
+    }
+
+    public synchronized long getNbSupprimes() {
+        return nbSupprimes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return nbInseres + " insérés, " + nbModifies + " mis à jour, " + nbInchanges + " inchangés, " + nbSupprimes + " supprimés";
+    }
+}
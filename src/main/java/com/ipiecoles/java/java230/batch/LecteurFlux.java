@@ -0,0 +1,104 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lit un flux UTF-8 ligne par ligne, par exemple le contenu d'un fichier compressé décompressé à la volée,
+ * en suivant la position en octets de la fin de la dernière ligne lue dans le flux.
+ * Les fins de ligne \n et \r\n sont reconnues.
+ */
+public class LecteurFlux implements SourceLignes {
+
+    private static final int TAILLE_BUFFER = 256 * 1024;
+
+    private final InputStream in;
+
+    private final byte[] buffer = new byte[TAILLE_BUFFER];
+
+    private int debut;
+
+    private int fin;
+
+    //Octets de la ligne en cours de lecture
+    private byte[] ligne = new byte[256];
+
+    private long position;
+
+    /**
+     * @param in le flux à lire, fermé avec ce lecteur
+     * @param position la position en octets dans le flux du début de la première ligne à lire : les octets
+     *                 qui précèdent sont lus et ignorés
+     * @throws IOException si le flux ne peut pas être lu
+     */
+    public LecteurFlux(InputStream in, long position) throws IOException {
+        this.in = in;
+        while (this.position < position && (debut < fin || remplir())) {
+            int saut = (int) Math.min(fin - debut, position - this.position);
+            debut += saut;
+            this.position += saut;
+        }
+    }
+
+    @Override
+    public String lireLigne() throws IOException {
+        int longueur = 0;
+        boolean octetsLus = false;
+        while (debut < fin || remplir()) {
+            octetsLus = true;
+            int i = debut;
+            while (i < fin && buffer[i] != '\n') {
+                i++;
+            }
+            longueur = copier(i, longueur);
+            position += i - debut;
+            if (i < fin) {
+                debut = i + 1;
+                position++;
+                return decoder(longueur);
+            }
+            debut = fin;
+        }
+        return octetsLus ? decoder(longueur) : null;
+    }
+
+    @Override
+    public boolean passerLigne() throws IOException {
+        return lireLigne() != null;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    private boolean remplir() throws IOException {
+        int lus = in.read(buffer);
+        debut = 0;
+        fin = Math.max(lus, 0);
+        return lus > 0;
+    }
+
+    private int copier(int finSegment, int longueur) {
+        int taille = finSegment - debut;
+        if (longueur + taille > ligne.length) {
+            ligne = Arrays.copyOf(ligne, Math.max(ligne.length * 2, longueur + taille));
+        }
+        System.arraycopy(buffer, debut, ligne, longueur, taille);
+        return longueur + taille;
+    }
+
+    private String decoder(int longueur) {
+        if (longueur > 0 && ligne[longueur - 1] == '\r') {
+            longueur--;
+        }
+        return new String(ligne, 0, longueur, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,165 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lit un fichier UTF-8 ligne par ligne en suivant la position en octets de la fin de la dernière ligne lue,
+ * ce qui permet de reprendre la lecture au milieu du fichier sans relire ce qui précède.
+ * Les fins de ligne \n et \r\n sont reconnues.
+ * Le fichier est projeté en mémoire par régions successives et les fins de ligne sont cherchées directement dans
+ * les octets : seules les lignes demandées sont décodées. La lecture peut être limitée à une plage d'octets
+ * (voir {@link LotLignes}), plusieurs lecteurs pouvant alors lire des plages différentes d'un même fichier.
+ */
+public class LecteurLignes implements SourceLignes {
+
+    //Taille maximum d'une région du fichier projetée en mémoire
+    private static final long TAILLE_REGION = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    //Faux si le channel est partagé et fermé par l'appelant
+    private final boolean fermerChannel;
+
+    private final long tailleRegion;
+
+    //Position en octets de la fin de la plage à lire
+    private final long finLecture;
+
+    private MappedByteBuffer region;
+
+    //Position en octets du début de la région dans le fichier
+    private long debutRegion;
+
+    //Octets de la ligne en cours de lecture
+    private byte[] ligne = new byte[256];
+
+    private long position;
+
+    /**
+     * @param fichier le fichier à lire
+     * @param position la position en octets du début de la première ligne à lire
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    public LecteurLignes(Path fichier, long position) throws IOException {
+        this(fichier, position, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param fichier le fichier à lire
+     * @param debut la position en octets du début de la première ligne à lire
+     * @param fin la position en octets de la fin de la plage à lire
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    public LecteurLignes(Path fichier, long debut, long fin) throws IOException {
+        this(FileChannel.open(fichier, StandardOpenOption.READ), true, debut, fin, TAILLE_REGION);
+    }
+
+    /**
+     * @param channel le fichier à lire, qui n'est pas fermé par ce lecteur et peut être partagé entre plusieurs threads
+     * @param debut la position en octets du début de la première ligne à lire
+     * @param fin la position en octets de la fin de la plage à lire
+     * @throws IOException si la taille du fichier ne peut pas être lue
+     */
+    public LecteurLignes(FileChannel channel, long debut, long fin) throws IOException {
+        this(channel, false, debut, fin, TAILLE_REGION);
+    }
+
+    LecteurLignes(FileChannel channel, boolean fermerChannel, long debut, long fin, long tailleRegion) throws IOException {
+        this.channel = channel;
+        this.fermerChannel = fermerChannel;
+        this.tailleRegion = tailleRegion;
+        this.finLecture = Math.min(fin, channel.size());
+        this.position = debut;
+    }
+
+    @Override
+    public String lireLigne() throws IOException {
+        if (position >= finLecture) {
+            return null;
+        }
+        int longueur = 0;
+        while (position < finLecture) {
+            projeter();
+            int i = (int) (position - debutRegion);
+            int j = finDeLigne(i);
+            longueur = copier(i, j, longueur);
+            position += j - i;
+            if (j < region.limit()) {
+                position++;
+                break;
+            }
+        }
+        return decoder(longueur);
+    }
+
+    @Override
+    public boolean passerLigne() throws IOException {
+        if (position >= finLecture) {
+            return false;
+        }
+        while (position < finLecture) {
+            projeter();
+            int i = (int) (position - debutRegion);
+            int j = finDeLigne(i);
+            position += j - i;
+            if (j < region.limit()) {
+                position++;
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    //Projette en mémoire la région commençant à la position courante si celle-ci est hors de la région courante
+    private void projeter() throws IOException {
+        if (region == null || position < debutRegion || position >= debutRegion + region.limit()) {
+            debutRegion = position;
+            region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(tailleRegion, finLecture - position));
+        }
+    }
+
+    //Indice du \n suivant dans la région, ou limite de la région
+    private int finDeLigne(int i) {
+        int limite = region.limit();
+        while (i < limite && region.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private int copier(int debutSegment, int finSegment, int longueur) {
+        int taille = finSegment - debutSegment;
+        if (longueur + taille > ligne.length) {
+            ligne = Arrays.copyOf(ligne, Math.max(ligne.length * 2, longueur + taille));
+        }
+        region.position(debutSegment);
+        region.get(ligne, longueur, taille);
+        return longueur + taille;
+    }
+
+    private String decoder(int longueur) {
+        if (longueur > 0 && ligne[longueur - 1] == '\r') {
+            longueur--;
+        }
+        return new String(ligne, 0, longueur, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        if (fermerChannel) {
+            channel.close();
+        }
+    }
+}
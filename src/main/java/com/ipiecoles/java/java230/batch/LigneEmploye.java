@@ -0,0 +1,71 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Employe;
+
+/**
+ * Résultat de l'analyse d'une ligne du fichier CSV, avant le rattachement des techniciens à leur manager
+ */
+public class LigneEmploye {
+
+    private final long numero;
+
+    private final String ligne;
+
+    //Position en octets de la fin de la ligne dans le fichier
+    private long fin;
+
+    private Employe employe;
+
+    /**
+     * Matricule du manager à rattacher, renseigné uniquement pour un technicien dont la ligne
+     * est valide jusqu'au contrôle du format du matricule manager
+     */
+    private String matriculeManager;
+
+    private ErreurLigne erreur;
+
+    public LigneEmploye(long numero, String ligne) {
+        this.numero = numero;
+        this.ligne = ligne;
+    }
+
+    public long getNumero() {
+        return numero;
+    }
+
+    public String getLigne() {
+        return ligne;
+    }
+
+    public long getFin() {
+        return fin;
+    }
+
+    public void setFin(long fin) {
+        this.fin = fin;
+    }
+
+    public Employe getEmploye() {
+        return employe;
+    }
+
+    public void setEmploye(Employe employe) {
+        this.employe = employe;
+    }
+
+    public String getMatriculeManager() {
+        return matriculeManager;
+    }
+
+    public void setMatriculeManager(String matriculeManager) {
+        this.matriculeManager = matriculeManager;
+    }
+
+    public ErreurLigne getErreur() {
+        return erreur;
+    }
+
+    public void setErreur(ErreurLigne erreur) {
+        this.erreur = erreur;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lot de lignes consécutives du fichier confié à un thread d'analyse, repéré par sa plage d'octets.
+ * Les lignes sont soit décodées par le thread de lecture, soit décodées par le thread d'analyse à partir de la
+ * plage d'octets : le thread de lecture n'a alors qu'à chercher les fins de ligne.
+ */
+public class LotLignes {
+
+    private final long premiereLigne;
+
+    //Position en octets du début de la première ligne
+    private final long debut;
+
+    //Position en octets de la fin de chaque ligne
+    private final long[] fins;
+
+    private final List<String> lignes;
+
+    private int nbLignes;
+
+    /**
+     * @param premiereLigne le numéro de la première ligne du lot
+     * @param debut la position en octets du début de la première ligne
+     * @param taille le nombre maximum de lignes du lot
+     */
+    public LotLignes(long premiereLigne, long debut, int taille) {
+        this.premiereLigne = premiereLigne;
+        this.debut = debut;
+        this.fins = new long[taille];
+        this.lignes = new ArrayList<>(taille);
+    }
+
+    /**
+     * @param ligne la ligne décodée, ou null si elle sera décodée par le thread d'analyse
+     * @param fin la position en octets de la fin de la ligne
+     */
+    public void ajouter(String ligne, long fin) {
+        fins[nbLignes++] = fin;
+        if (ligne != null) {
+            lignes.add(ligne);
+        }
+    }
+
+    /**
+     * Méthode qui renvoie les lignes du lot, en les lisant dans le fichier si elles n'ont pas été décodées à l'ajout
+     * @param channel le fichier, partagé entre les threads d'analyse
+     * @return les lignes du lot
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public List<String> lignes(FileChannel channel) throws IOException {
+        if (lignes.size() == nbLignes) {
+            return lignes;
+        }
+        List<String> decodees = new ArrayList<>(nbLignes);
+        try (LecteurLignes lecteur = new LecteurLignes(channel, debut, fins[nbLignes - 1])) {
+            for (int i = 0; i < nbLignes; i++) {
+                decodees.add(lecteur.lireLigne());
+            }
+        }
+        return decodees;
+    }
+
+    public long getPremiereLigne() {
+        return premiereLigne;
+    }
+
+    public long getFin(int i) {
+        return fins[i];
+    }
+
+    public int getNbLignes() {
+        return nbLignes;
+    }
+}
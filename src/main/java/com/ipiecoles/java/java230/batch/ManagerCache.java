@@ -0,0 +1,68 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache LRU borné des managers présents en base de données, utilisé pour rattacher les techniciens
+ * dont le manager n'est pas dans le fichier. Les matricules absents de la base sont aussi mémorisés,
+ * afin que chaque manager ne soit recherché qu'une fois par import.
+ * Cette classe n'est pas thread-safe.
+ */
+public class ManagerCache {
+
+    private final ManagerRepository managerRepository;
+
+    private final Map<String, Manager> managers;
+
+    public ManagerCache(ManagerRepository managerRepository, int capacite) {
+        this.managerRepository = managerRepository;
+        this.managers = new LinkedHashMap<String, Manager>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Manager> eldest) {
+                return size() > capacite;
+            }
+        };
+    }
+
+    /**
+     * Méthode qui charge en une seule requête les managers dont les matricules ne sont pas encore en cache
+     * @param matricules les matricules des managers qui vont être recherchés
+     */
+    public void precharger(Collection<String> matricules) {
+        Set<String> manquants = new LinkedHashSet<>();
+        for (String matricule : matricules) {
+            if (!managers.containsKey(matricule)) {
+                manquants.add(matricule);
+            }
+        }
+        if (manquants.isEmpty()) {
+            return;
+        }
+        for (Manager manager : managerRepository.findByMatriculeIn(manquants)) {
+            manquants.remove(manager.getMatricule());
+            managers.put(manager.getMatricule(), manager);
+        }
+        for (String matricule : manquants) {
+            managers.put(matricule, null);
+        }
+    }
+
+    /**
+     * Méthode qui retourne le manager de la base ayant ce matricule, en le recherchant s'il n'est pas en cache
+     * @param matricule le matricule du manager
+     * @return le manager ou null s'il n'existe pas en base de données
+     */
+    public Manager get(String matricule) {
+        if (!managers.containsKey(matricule)) {
+            managers.put(matricule, managerRepository.findByMatricule(matricule));
+        }
+        return managers.get(matricule);
+    }
+}
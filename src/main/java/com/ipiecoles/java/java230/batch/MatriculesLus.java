@@ -0,0 +1,60 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.Arrays;
+
+/**
+ * Ensemble des matricules lus dans un fichier, pour détecter les matricules en double.
+ * Un matricule valide (^[MTC][0-9]{5}$) est codé par un entier inférieur à 300 000, l'ensemble est donc un tableau
+ * de bits de taille fixe (environ 37 Ko) quel que soit le nombre de lignes du fichier, sans String ni objet par matricule.
+ * Cette classe n'est pas thread-safe.
+ */
+public class MatriculesLus {
+
+    private static final String TYPES = "MTC";
+
+    private static final int NB_NUMEROS = 100_000;
+
+    private final long[] bits = new long[(TYPES.length() * NB_NUMEROS + 63) / 64];
+
+    /**
+     * Méthode qui code un matricule par un entier : l'indice de sa lettre dans MTC multiplié par 100 000, plus son numéro
+     * @param matricule le matricule
+     * @return le code du matricule, -1 si le matricule ne respecte pas ^[MTC][0-9]{5}$
+     */
+    public static int coder(String matricule) {
+        if (!Validateurs.matricule(matricule)) {
+            return -1;
+        }
+        int code = TYPES.indexOf(matricule.charAt(0));
+        for (int i = 1; i < matricule.length(); i++) {
+            code = code * 10 + matricule.charAt(i) - '0';
+        }
+        return code;
+    }
+
+    /**
+     * Méthode qui ajoute un matricule à l'ensemble
+     * @param matricule le matricule d'une ligne valide
+     * @return false si le matricule avait déjà été ajouté
+     * @throws IllegalArgumentException si le matricule ne respecte pas ^[MTC][0-9]{5}$
+     */
+    public boolean ajouter(String matricule) {
+        int code = coder(matricule);
+        if (code < 0) {
+            throw new IllegalArgumentException("Matricule invalide : " + matricule);
+        }
+        long masque = 1L << code;
+        if ((bits[code >>> 6] & masque) != 0) {
+            return false;
+        }
+        bits[code >>> 6] |= masque;
+        return true;
+    }
+
+    /**
+     * Méthode qui vide l'ensemble avant la lecture d'un nouveau fichier
+     */
+    public void vider() {
+        Arrays.fill(bits, 0L);
+    }
+}
@@ -0,0 +1,122 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cumul des métriques de tous les imports depuis le démarrage de l'application, exposé en JMX
+ * (com.ipiecoles.java.java230:name=metriquesBatch, dans jconsole par exemple) pour suivre le débit en mode surveillance.
+ * Les compteurs ne font qu'augmenter, les débits et le pic de tas sont ceux du dernier import terminé.
+ */
+@Component
+@ManagedResource(objectName = "com.ipiecoles.java.java230:name=metriquesBatch", description = "Métriques des imports d'employés")
+public class MetriquesBatch {
+
+    private long nbImports;
+
+    private long lignes;
+
+    private long octets;
+
+    private long employes;
+
+    private final long[] rejets = new long[CodeErreur.values().length];
+
+    private final Map<PhaseImport, HistogrammeLatence> latences = new EnumMap<>(PhaseImport.class);
+
+    private MetriquesImport dernierImport;
+
+    public MetriquesBatch() {
+        for (PhaseImport phase : PhaseImport.values()) {
+            latences.put(phase, new HistogrammeLatence());
+        }
+    }
+
+    /**
+     * Méthode qui ajoute les métriques d'un import terminé
+     * @param metriques les métriques de l'import
+     */
+    public synchronized void enregistrer(MetriquesImport metriques) {
+        nbImports++;
+        lignes += metriques.getLignes();
+        octets += metriques.getOctets();
+        employes += metriques.getEmployes();
+        for (CodeErreur code : CodeErreur.values()) {
+            rejets[code.ordinal()] += metriques.getRejets(code);
+        }
+        for (PhaseImport phase : PhaseImport.values()) {
+            latences.get(phase).ajouter(metriques.getLatence(phase));
+        }
+        dernierImport = metriques;
+    }
+
+    /**
+     * @return les métriques du dernier import terminé, null si aucun import n'est terminé
+     */
+    public synchronized MetriquesImport getDernierImport() {
+        return dernierImport;
+    }
+
+    @ManagedAttribute(description = "Nombre d'imports terminés")
+    public synchronized long getNbImports() {
+        return nbImports;
+    }
+
+    @ManagedAttribute(description = "Nombre de lignes lues")
+    public synchronized long getLignes() {
+        return lignes;
+    }
+
+    @ManagedAttribute(description = "Nombre d'octets lus")
+    public synchronized long getOctets() {
+        return octets;
+    }
+
+    @ManagedAttribute(description = "Nombre d'employés enregistrés")
+    public synchronized long getEmployes() {
+        return employes;
+    }
+
+    @ManagedAttribute(description = "Nombre de lignes rejetées par motif")
+    public synchronized Map<String, Long> getRejets() {
+        Map<String, Long> parCode = new LinkedHashMap<>();
+        for (CodeErreur code : CodeErreur.values()) {
+            parCode.put(code.name(), rejets[code.ordinal()]);
+        }
+        return parCode;
+    }
+
+    @ManagedAttribute(description = "Durées de chaque phase")
+    public synchronized Map<String, String> getLatences() {
+        Map<String, String> parPhase = new LinkedHashMap<>();
+        for (PhaseImport phase : PhaseImport.values()) {
+            parPhase.put(phase.cle(), latences.get(phase).toString());
+        }
+        return parPhase;
+    }
+
+    @ManagedAttribute(description = "Lignes lues par seconde lors du dernier import")
+    public synchronized double getLignesParSecondeDernierImport() {
+        return dernierImport == null ? 0 : dernierImport.lignesParSeconde();
+    }
+
+    @ManagedAttribute(description = "Octets lus par seconde lors du dernier import")
+    public synchronized double getOctetsParSecondeDernierImport() {
+        return dernierImport == null ? 0 : dernierImport.octetsParSeconde();
+    }
+
+    @ManagedAttribute(description = "Pic d'utilisation du tas lors du dernier import, en octets")
+    public synchronized long getPicTasDernierImport() {
+        return dernierImport == null ? 0 : dernierImport.getPicTas();
+    }
+
+    @ManagedAttribute(description = "Bilan du dernier import")
+    public synchronized String getBilanDernierImport() {
+        return dernierImport == null ? "" : dernierImport.bilan();
+    }
+}
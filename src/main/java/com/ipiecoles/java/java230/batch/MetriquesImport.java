@@ -0,0 +1,225 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métriques d'un import : lignes et octets lus, employés enregistrés, rejets par motif, histogramme des durées de
+ * chaque phase et pic d'utilisation du tas. Les phases appliquées à chaque ligne (découpage, validation, date) ne sont
+ * chronométrées que pour une ligne sur {@link #ECHANTILLON}, afin que la mesure ne ralentisse pas l'analyse.
+ * Les métriques peuvent être relevées par plusieurs threads en même temps.
+ */
+public class MetriquesImport {
+
+    //Une ligne sur ECHANTILLON est chronométrée, ECHANTILLON étant une puissance de 2
+    public static final int ECHANTILLON = 64;
+
+    //Imports en cours dans la JVM : le pic du tas, commun à toute la JVM, n'est remis à zéro que s'il n'y en a aucun autre
+    private static final AtomicInteger IMPORTS_EN_COURS = new AtomicInteger();
+
+    private final String fichier;
+
+    private final long debut = System.nanoTime();
+
+    private final Map<PhaseImport, HistogrammeLatence> latences = new EnumMap<>(PhaseImport.class);
+
+    private final AtomicLongArray rejets = new AtomicLongArray(CodeErreur.values().length);
+
+    private final LongAdder employes = new LongAdder();
+
+    private long lignes;
+
+    private long octets;
+
+    private long duree;
+
+    private long picTas;
+
+    private final AtomicBoolean enCours = new AtomicBoolean(true);
+
+    /**
+     * Crée les métriques d'un import qui commence, et remet à zéro le pic d'utilisation du tas de la JVM si aucun
+     * autre import n'est en cours
+     * @param fichier le fichier importé
+     */
+    public MetriquesImport(String fichier) {
+        this.fichier = fichier;
+        for (PhaseImport phase : PhaseImport.values()) {
+            latences.put(phase, new HistogrammeLatence());
+        }
+        if (IMPORTS_EN_COURS.getAndIncrement() == 0) {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param numero le numéro de la ligne
+     * @return vrai si les phases de cette ligne doivent être chronométrées
+     */
+    public static boolean echantillonner(long numero) {
+        return (numero & (ECHANTILLON - 1)) == 0;
+    }
+
+    /**
+     * @param phase la phase terminée
+     * @param debut le début de la phase, donné par System.nanoTime()
+     */
+    public void latence(PhaseImport phase, long debut) {
+        latences.get(phase).enregistrer(System.nanoTime() - debut);
+    }
+
+    /**
+     * @param phase la phase
+     * @param duree la durée de la phase en nanosecondes
+     */
+    public void duree(PhaseImport phase, long duree) {
+        latences.get(phase).enregistrer(duree);
+    }
+
+    public void rejet(CodeErreur code) {
+        rejets.incrementAndGet(code.ordinal());
+    }
+
+    public void employesEnregistres(int nombre) {
+        employes.add(nombre);
+    }
+
+    /**
+     * Méthode appelée à la fin de l'import, qui relève sa durée et le pic d'utilisation du tas.
+     * Le pic est la somme des pics des zones du tas, qui peuvent ne pas avoir été atteints au même moment : c'est donc
+     * un majorant. Le pic étant commun à toute la JVM, il n'est pas remis à zéro au début d'un import si d'autres
+     * sont en cours (mode surveillance) : c'est alors le pic de la JVM depuis le début du premier des imports en cours,
+     * partagé par ces imports.
+     * @param lignes le nombre de lignes lues
+     * @param octets le nombre d'octets lus dans le fichier
+     */
+    public void terminer(long lignes, long octets) {
+        this.duree = System.nanoTime() - debut;
+        this.lignes = lignes;
+        this.octets = octets;
+        long pic = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pic += pool.getPeakUsage().getUsed();
+            }
+        }
+        this.picTas = pic;
+        abandonner();
+    }
+
+    /**
+     * Méthode appelée lorsque l'import se termine sans appeler terminer (échec), pour qu'il ne soit plus compté
+     * parmi les imports en cours
+     */
+    public void abandonner() {
+        if (enCours.compareAndSet(true, false)) {
+            IMPORTS_EN_COURS.decrementAndGet();
+        }
+    }
+
+    public String getFichier() {
+        return fichier;
+    }
+
+    public long getLignes() {
+        return lignes;
+    }
+
+    public long getOctets() {
+        return octets;
+    }
+
+    /**
+     * @return la durée de l'import en nanosecondes
+     */
+    public long getDuree() {
+        return duree;
+    }
+
+    public long getEmployes() {
+        return employes.sum();
+    }
+
+    /**
+     * @return le pic d'utilisation du tas en octets
+     */
+    public long getPicTas() {
+        return picTas;
+    }
+
+    public HistogrammeLatence getLatence(PhaseImport phase) {
+        return latences.get(phase);
+    }
+
+    public long getRejets(CodeErreur code) {
+        return rejets.get(code.ordinal());
+    }
+
+    public long getNbRejets() {
+        long total = 0;
+        for (int i = 0; i < rejets.length(); i++) {
+            total += rejets.get(i);
+        }
+        return total;
+    }
+
+    public double lignesParSeconde() {
+        return lignes * 1e9 / Math.max(duree, 1);
+    }
+
+    public double octetsParSeconde() {
+        return octets * 1e9 / Math.max(duree, 1);
+    }
+
+    /**
+     * @return le bilan de l'import sur une ligne de paires cle=valeur, pour être exploité par un outil de suivi
+     */
+    public String bilan() {
+        StringBuilder bilan = new StringBuilder("metriques_import");
+        ajouter(bilan, "fichier", fichier);
+        ajouter(bilan, "duree_ms", duree / 1_000_000);
+        ajouter(bilan, "lignes", lignes);
+        ajouter(bilan, "octets", octets);
+        ajouter(bilan, "lignes_par_s", Math.round(lignesParSeconde()));
+        ajouter(bilan, "octets_par_s", Math.round(octetsParSeconde()));
+        ajouter(bilan, "employes", getEmployes());
+        ajouter(bilan, "rejets", getNbRejets());
+        for (CodeErreur code : CodeErreur.values()) {
+            if (getRejets(code) > 0) {
+                ajouter(bilan, "rejets." + code, getRejets(code));
+            }
+        }
+        for (PhaseImport phase : PhaseImport.values()) {
+            HistogrammeLatence latence = latences.get(phase);
+            if (latence.getNombre() > 0) {
+                ajouter(bilan, phase.cle() + ".n", latence.getNombre());
+                ajouter(bilan, phase.cle() + ".p50_us", String.format(Locale.ROOT, "%.1f", latence.quantile(0.5) / 1e3));
+                ajouter(bilan, phase.cle() + ".p99_us", String.format(Locale.ROOT, "%.1f", latence.quantile(0.99) / 1e3));
+                ajouter(bilan, phase.cle() + ".max_us", String.format(Locale.ROOT, "%.1f", latence.getMax() / 1e3));
+            }
+        }
+        ajouter(bilan, "tas_max_mo", picTas / (1024 * 1024));
+        return bilan.toString();
+    }
+
+    private static void ajouter(StringBuilder bilan, String cle, Object valeur) {
+        String texte = String.valueOf(valeur);
+        //Une valeur contenant un espace est mise entre guillemets
+        if (texte.indexOf(' ') >= 0) {
+            texte = '"' + texte.replace("\"", "\\\"") + '"';
+        }
+        bilan.append(' ').append(cle).append('=').append(texte);
+    }
+}
@@ -0,0 +1,134 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Lecture des dates au format dd/MM/yyyy du fichier CSV des employés.
+ * Les dates de 10 caractères sont lues directement et mémorisées dans un cache de taille fixe : les dates d'embauche
+ * se répètent beaucoup d'une ligne à l'autre. Les autres formes acceptées par Joda (jour ou mois sur un chiffre...)
+ * passent par un formateur unique, partagé. La classe est thread-safe : le formateur Joda est immuable, et chaque
+ * case du cache contient une entrée immuable remplacée d'un bloc.
+ */
+public final class ParseurDate {
+
+    public static final String FORMAT = "dd/MM/yyyy";
+
+    private static final DateTimeFormatter FORMATEUR = DateTimeFormat.forPattern(FORMAT);
+
+    //Nombre de cases du cache, une puissance de 2
+    private static final int TAILLE_CACHE = 1024;
+
+    private static final Entree[] CACHE = new Entree[TAILLE_CACHE];
+
+    private static final int[] JOURS_PAR_MOIS = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private ParseurDate() {
+    }
+
+    /**
+     * Méthode qui lit une date au format dd/MM/yyyy
+     * @param date la date à lire
+     * @return la date
+     * @throws IllegalArgumentException si la chaîne n'est pas une date valide au format dd/MM/yyyy
+     */
+    public static LocalDate parse(String date) {
+        return parse(date, 0, date.length());
+    }
+
+    /**
+     * Méthode qui lit une date au format dd/MM/yyyy à l'intérieur d'une chaîne, sans en extraire de sous-chaîne
+     * lorsque la date fait 10 caractères
+     * @param texte la chaîne contenant la date
+     * @param debut la position du premier caractère de la date
+     * @param fin la position suivant le dernier caractère de la date
+     * @return la date
+     * @throws IllegalArgumentException si la date n'est pas valide au format dd/MM/yyyy
+     */
+    public static LocalDate parse(CharSequence texte, int debut, int fin) {
+        LocalDate date = lire(texte, debut, fin);
+        if (date == null) {
+            throw new IllegalArgumentException("Date invalide au format " + FORMAT + " : \"" + texte.subSequence(debut, fin) + "\"");
+        }
+        return date;
+    }
+
+    /**
+     * Méthode qui lit une date au format dd/MM/yyyy comme parse, mais renvoie null au lieu de lever une exception
+     * lorsque la date est invalide : les dates de 10 caractères sont contrôlées sans passer par Joda
+     * @param texte la chaîne contenant la date
+     * @param debut la position du premier caractère de la date
+     * @param fin la position suivant le dernier caractère de la date
+     * @return la date, null si elle n'est pas valide au format dd/MM/yyyy
+     */
+    public static LocalDate lire(CharSequence texte, int debut, int fin) {
+        if (fin - debut == FORMAT.length() && texte.charAt(debut + 2) == '/' && texte.charAt(debut + 5) == '/') {
+            int jour = chiffres(texte, debut, 2);
+            int mois = chiffres(texte, debut + 3, 2);
+            int annee = chiffres(texte, debut + 6, 4);
+            if (jour >= 0 && mois >= 0 && annee >= 0) {
+                return estValide(annee, mois, jour) ? date(annee, mois, jour) : null;
+            }
+        }
+        //Le formateur Joda n'accepte que des chiffres, des / et un éventuel signe pour l'année
+        for (int j = debut; j < fin; j++) {
+            char c = texte.charAt(j);
+            if ((c < '0' || c > '9') && c != '/' && c != '-' && c != '+') {
+                return null;
+            }
+        }
+        try {
+            return FORMATEUR.parseLocalDate(texte.subSequence(debut, fin).toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    //Mêmes règles que la chronologie ISO de Joda (calendrier grégorien proleptique)
+    private static boolean estValide(int annee, int mois, int jour) {
+        if (mois < 1 || mois > 12 || jour < 1) {
+            return false;
+        }
+        boolean bissextile = annee % 4 == 0 && (annee % 100 != 0 || annee % 400 == 0);
+        return jour <= (mois == 2 && bissextile ? 29 : JOURS_PAR_MOIS[mois - 1]);
+    }
+
+    //Cherche la date, déjà validée, dans le cache, la crée et la mémorise sinon
+    private static LocalDate date(int annee, int mois, int jour) {
+        int cle = annee * 10_000 + mois * 100 + jour;
+        int index = (cle * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(TAILLE_CACHE));
+        Entree entree = CACHE[index];
+        if (entree != null && entree.cle == cle) {
+            return entree.date;
+        }
+        LocalDate date = new LocalDate(annee, mois, jour);
+        CACHE[index] = new Entree(cle, date);
+        return date;
+    }
+
+    //Valeur des nb chiffres à partir de la position, -1 si l'un des caractères n'est pas un chiffre
+    private static int chiffres(CharSequence texte, int position, int nb) {
+        int valeur = 0;
+        for (int j = position; j < position + nb; j++) {
+            int chiffre = texte.charAt(j) - '0';
+            if (chiffre < 0 || chiffre > 9) {
+                return -1;
+            }
+            valeur = valeur * 10 + chiffre;
+        }
+        return valeur;
+    }
+
+    private static final class Entree {
+
+        private final int cle;
+
+        private final LocalDate date;
+
+        private Entree(int cle, LocalDate date) {
+            this.cle = cle;
+            this.date = date;
+        }
+    }
+}
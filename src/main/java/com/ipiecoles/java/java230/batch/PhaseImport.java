@@ -0,0 +1,29 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.Locale;
+
+/**
+ * Phases chronométrées d'un import, voir MetriquesImport
+ */
+public enum PhaseImport {
+
+    //Repérage des lignes d'un lot dans le fichier
+    LECTURE,
+    //Découpage d'une ligne en champs, sur un échantillon de lignes
+    DECOUPAGE,
+    //Contrôle des champs d'une ligne hors découpage et lecture de la date, sur un échantillon de lignes
+    VALIDATION,
+    //Lecture de la date d'embauche d'une ligne, sur un échantillon de lignes
+    DATE,
+    //Recherche des managers et rattachement des techniciens d'un lot
+    RATTACHEMENT,
+    //Enregistrement d'une fenêtre d'employés
+    ECRITURE;
+
+    /**
+     * @return le nom de la phase utilisé dans les métriques
+     */
+    public String cle() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
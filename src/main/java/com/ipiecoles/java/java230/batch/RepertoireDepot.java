@@ -0,0 +1,178 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Répertoire de dépôt surveillé : chaque fichier qui y est déposé est importé, puis déplacé dans le répertoire
+ * des fichiers traités ou, si l'import échoue, dans celui des fichiers en échec.
+ * Les fichiers sont importés par un nombre borné de threads, les fichiers en trop attendant leur tour. L'application
+ * restant démarrée entre deux fichiers, le démarrage de Spring et d'Hibernate n'est payé qu'une fois.
+ * Un fichier doit être déposé d'un seul coup (écrit ailleurs puis déplacé dans le répertoire) : les fichiers cachés
+ * (.xxx) et temporaires (xxx.tmp) sont ignorés, ce qui permet aussi d'écrire le fichier dans le répertoire sous un nom
+ * temporaire avant de le renommer.
+ */
+public class RepertoireDepot implements Closeable {
+
+    private static final String EXTENSION_TEMPORAIRE = ".tmp";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Path repertoire;
+
+    private final Path repertoireTraites;
+
+    private final Path repertoireEchecs;
+
+    private final Predicate<Path> importeur;
+
+    private final ThreadPoolExecutor executor;
+
+    //Fichiers soumis et pas encore déplacés, pour ne pas importer deux fois un fichier signalé plusieurs fois
+    private final Set<Path> enCours = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param repertoire le répertoire surveillé
+     * @param repertoireTraites le répertoire où sont déplacés les fichiers importés
+     * @param repertoireEchecs le répertoire où sont déplacés les fichiers dont l'import a échoué
+     * @param parallelisme le nombre maximum de fichiers importés en même temps
+     * @param importeur l'import d'un fichier, qui retourne faux ou lève une exception en cas d'échec
+     * @throws IOException si un des répertoires ne peut pas être créé
+     */
+    public RepertoireDepot(Path repertoire, Path repertoireTraites, Path repertoireEchecs, int parallelisme,
+                           Predicate<Path> importeur) throws IOException {
+        this.repertoire = Files.createDirectories(repertoire);
+        this.repertoireTraites = Files.createDirectories(repertoireTraites);
+        this.repertoireEchecs = Files.createDirectories(repertoireEchecs);
+        this.importeur = importeur;
+        this.executor = new ThreadPoolExecutor(parallelisme, parallelisme, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * Méthode qui importe les fichiers déjà présents dans le répertoire, puis ceux qui y sont déposés, jusqu'à
+     * l'interruption du thread appelant
+     * @throws IOException si le répertoire ne peut pas être surveillé
+     */
+    public void surveiller() throws IOException {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            //La surveillance commence avant la lecture du répertoire pour ne manquer aucun fichier déposé entre les deux
+            repertoire.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            logger.info("surveillance du répertoire " + repertoire.toAbsolutePath());
+            soumettreFichiersPresents();
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey cle = watchService.take();
+                for (WatchEvent<?> evenement : cle.pollEvents()) {
+                    if (evenement.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        //Des événements ont été perdus : on relit le répertoire
+                        soumettreFichiersPresents();
+                    } else {
+                        soumettre(repertoire.resolve((Path) evenement.context()));
+                    }
+                }
+                if (!cle.reset()) {
+                    logger.error("le répertoire " + repertoire + " n'est plus accessible, arrêt de la surveillance");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("fin de la surveillance du répertoire " + repertoire.toAbsolutePath());
+    }
+
+    /**
+     * Méthode qui soumet les fichiers présents dans le répertoire, par ordre de nom
+     * @throws IOException si le répertoire ne peut pas être lu
+     */
+    private void soumettreFichiersPresents() throws IOException {
+        List<Path> fichiers = new ArrayList<>();
+        try (DirectoryStream<Path> contenu = Files.newDirectoryStream(repertoire)) {
+            contenu.forEach(fichiers::add);
+        }
+        Collections.sort(fichiers);
+        fichiers.forEach(this::soumettre);
+    }
+
+    private void soumettre(Path fichier) {
+        String nom = fichier.getFileName().toString();
+        if (nom.startsWith(".") || nom.endsWith(EXTENSION_TEMPORAIRE) || !Files.isRegularFile(fichier) || !enCours.add(fichier)) {
+            return;
+        }
+        executor.execute(() -> importer(fichier));
+    }
+
+    /**
+     * Méthode qui importe un fichier et le déplace selon le résultat de l'import
+     * @param fichier le fichier déposé
+     */
+    private void importer(Path fichier) {
+        long debut = System.nanoTime();
+        boolean succes;
+        try {
+            succes = importeur.test(fichier);
+        } catch (RuntimeException e) {
+            logger.error("échec de l'import du fichier " + fichier.getFileName() + " : " + e.getMessage());
+            succes = false;
+        }
+        try {
+            Path destination = deplacer(fichier, succes ? repertoireTraites : repertoireEchecs);
+            logger.info("fichier " + fichier.getFileName() + (succes ? " importé" : " en échec") + " en "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut) + " ms, déplacé vers " + destination);
+        } catch (IOException e) {
+            logger.error("impossible de déplacer le fichier " + fichier + " : " + e.getMessage());
+        } finally {
+            enCours.remove(fichier);
+        }
+    }
+
+    /**
+     * Méthode qui déplace un fichier sans écraser un fichier de même nom déposé précédemment
+     * @param fichier le fichier à déplacer
+     * @param cible le répertoire de destination
+     * @return le nouveau chemin du fichier
+     * @throws IOException si le fichier ne peut pas être déplacé
+     */
+    private Path deplacer(Path fichier, Path cible) throws IOException {
+        Path destination = cible.resolve(fichier.getFileName());
+        if (Files.exists(destination)) {
+            destination = cible.resolve(System.currentTimeMillis() + "-" + fichier.getFileName());
+        }
+        return Files.move(fichier, destination);
+    }
+
+    /**
+     * Méthode qui attend la fin des imports en cours. Les fichiers qui n'ont pas encore été importés restent dans
+     * le répertoire et seront importés à la prochaine surveillance.
+     */
+    @Override
+    public void close() {
+        executor.getQueue().clear();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
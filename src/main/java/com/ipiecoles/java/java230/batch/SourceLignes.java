@@ -0,0 +1,30 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Lecture ligne par ligne d'un fichier en suivant la position en octets de la fin de la dernière ligne lue
+ * (position dans le contenu décompressé pour un fichier compressé)
+ */
+public interface SourceLignes extends Closeable {
+
+    /**
+     * Méthode qui lit la ligne suivante
+     * @return la ligne sans son caractère de fin de ligne, ou null à la fin du fichier
+     * @throws IOException en cas d'erreur de lecture
+     */
+    String lireLigne() throws IOException;
+
+    /**
+     * Méthode qui passe la ligne suivante, sans la décoder lorsque c'est possible
+     * @return false à la fin du fichier
+     * @throws IOException en cas d'erreur de lecture
+     */
+    boolean passerLigne() throws IOException;
+
+    /**
+     * @return la position en octets de la fin de la dernière ligne lue
+     */
+    long getPosition();
+}
@@ -0,0 +1,70 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.regex.Pattern;
+
+/**
+ * Validateurs des champs du fichier CSV des employés, équivalents aux expressions régulières de EmployeParser.
+ * Les matricules sont contrôlés caractère par caractère, les noms et prénoms par des Pattern compilés une seule fois.
+ * Les Pattern étant immuables et chaque appel créant son propre Matcher, ces méthodes peuvent être appelées
+ * par plusieurs threads en même temps.
+ */
+public final class Validateurs {
+
+    private static final Pattern PATTERN_NOM = Pattern.compile(EmployeParser.REGEX_NOM);
+
+    private static final Pattern PATTERN_PRENOM = Pattern.compile(EmployeParser.REGEX_PRENOM);
+
+    private static final int LONGUEUR_MATRICULE = 6;
+
+    private Validateurs() {
+    }
+
+    /**
+     * Méthode qui vérifie qu'un matricule respecte ^[MTC][0-9]{5}$
+     * @param matricule le matricule à vérifier
+     * @return true si le matricule est valide
+     */
+    public static boolean matricule(String matricule) {
+        if (matricule.length() != LONGUEUR_MATRICULE) {
+            return false;
+        }
+        char type = matricule.charAt(0);
+        return (type == 'M' || type == 'T' || type == 'C') && chiffres(matricule);
+    }
+
+    /**
+     * Méthode qui vérifie qu'un matricule de manager respecte ^M[0-9]{5}$
+     * @param matricule le matricule à vérifier
+     * @return true si le matricule est valide
+     */
+    public static boolean matriculeManager(String matricule) {
+        return matricule.length() == LONGUEUR_MATRICULE && matricule.charAt(0) == 'M' && chiffres(matricule);
+    }
+
+    /**
+     * @param nom le nom à vérifier
+     * @return true si le nom respecte EmployeParser.REGEX_NOM
+     */
+    public static boolean nom(String nom) {
+        return PATTERN_NOM.matcher(nom).matches();
+    }
+
+    /**
+     * @param prenom le prénom à vérifier
+     * @return true si le prénom respecte EmployeParser.REGEX_PRENOM
+     */
+    public static boolean prenom(String prenom) {
+        return PATTERN_PRENOM.matcher(prenom).matches();
+    }
+
+    //Vérifie que les caractères suivant la lettre du matricule sont des chiffres ASCII, comme [0-9]
+    private static boolean chiffres(String matricule) {
+        for (int i = 1; i < LONGUEUR_MATRICULE; i++) {
+            char c = matricule.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
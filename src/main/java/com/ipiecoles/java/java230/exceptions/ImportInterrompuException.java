@@ -0,0 +1,11 @@
+package com.ipiecoles.java.java230.exceptions;
+
+/**
+ * Levée lorsqu'un import est interrompu avant la fin du fichier, par exemple parce que le budget d'erreurs est dépassé.
+ * Elle n'est pas contrôlée car elle traverse les consommateurs de fenêtres et le CommandLineRunner.
+ */
+public class ImportInterrompuException extends RuntimeException {
+    public ImportInterrompuException(String message){
+        super(message);
+    }
+}
@@ -1,5 +1,7 @@
 package com.ipiecoles.java.java230.model;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.Type;
 import org.joda.time.LocalDate;
 
@@ -11,7 +13,13 @@ import java.util.Objects;
 public abstract class Employe {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "employe_id")
+	@GenericGenerator(name = "employe_id", strategy = "com.ipiecoles.java.java230.model.EmployeIdGenerator", parameters = {
+			@Parameter(name = "table_name", value = "employe_id"),
+			@Parameter(name = "segment_value", value = "Employe"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled-lo")
+	})
 	private Long id;
 
 	private String nom;
@@ -24,6 +32,16 @@ public abstract class Employe {
 	private LocalDate dateEmbauche;
 	
 	private Double salaire = Entreprise.SALAIRE_BASE;
+
+	//Empreinte de la ligne du fichier d'import dont est issu l'employé, pour l'import différentiel (voir sql/employe_delta.sql,
+	//dont l'exécution est contrôlée au démarrage par VerificationSchema)
+	private Long empreinteLigne;
+
+	//Nom et prénom normalisés par NormalisationNom, indexés pour la recherche (voir sql/employe_recherche.sql, dont
+	//l'exécution est contrôlée au démarrage par VerificationSchema)
+	private String nomRecherche;
+
+	private String prenomRecherche;
 	
 	public Employe() {
 		
@@ -133,6 +151,38 @@ public abstract class Employe {
 		this.salaire = salaire;
 	}
 
+	/**
+	 * @return the empreinteLigne
+	 */
+	public Long getEmpreinteLigne() {
+		return empreinteLigne;
+	}
+
+	/**
+	 * @param empreinteLigne the empreinteLigne to set
+	 */
+	public void setEmpreinteLigne(Long empreinteLigne) {
+		this.empreinteLigne = empreinteLigne;
+	}
+
+	public String getNomRecherche() {
+		return nomRecherche;
+	}
+
+	public String getPrenomRecherche() {
+		return prenomRecherche;
+	}
+
+	/**
+	 * Méthode appelée avant chaque insertion ou mise à jour, qui tient à jour le nom et le prénom de recherche
+	 */
+	@PrePersist
+	@PreUpdate
+	protected void normaliserNoms() {
+		this.nomRecherche = NormalisationNom.normaliser(nom);
+		this.prenomRecherche = NormalisationNom.normaliser(prenom);
+	}
+
 	@Override
 	public String toString() {
 		final StringBuilder sb = new StringBuilder("Employe{");
@@ -0,0 +1,30 @@
+package com.ipiecoles.java.java230.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Générateur d'identifiants des employés, adossé à une table et compatible avec les insertions par batchs JDBC
+ * (contrairement à IDENTITY). Une seule requête sur la table réserve un bloc d'identifiants.
+ * La taille du bloc et l'optimiseur (pooled, pooled-lo, hilo...) se règlent avec les propriétés Hibernate
+ * {@link #TAILLE_ALLOCATION} et {@link #OPTIMISEUR}.
+ */
+public class EmployeIdGenerator extends TableGenerator {
+
+    public static final String TAILLE_ALLOCATION = "employe.id.taille-allocation";
+    public static final String OPTIMISEUR = "employe.id.optimiseur";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService configuration = serviceRegistry.getService(ConfigurationService.class);
+        params.setProperty(INCREMENT_PARAM, configuration.getSetting(TAILLE_ALLOCATION, StandardConverters.STRING, params.getProperty(INCREMENT_PARAM)));
+        params.setProperty(OPT_PARAM, configuration.getSetting(OPTIMISEUR, StandardConverters.STRING, params.getProperty(OPT_PARAM)));
+        super.configure(type, params, serviceRegistry);
+    }
+}
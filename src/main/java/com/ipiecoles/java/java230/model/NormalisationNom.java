@@ -0,0 +1,36 @@
+package com.ipiecoles.java.java230.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Forme des noms et prénoms utilisée pour la recherche : en minuscules, sans accents et sans espaces autour,
+ * pour que "Hélène", "HELENE" et "helene " se retrouvent par la même valeur indexée.
+ */
+public final class NormalisationNom {
+
+	private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+	private NormalisationNom() {
+	}
+
+	/**
+	 * @param nom un nom ou un prénom
+	 * @return le nom en minuscules sans accents, null si le nom est null
+	 */
+	public static String normaliser(String nom) {
+		if (nom == null) {
+			return null;
+		}
+		String texte = nom.trim();
+		//Les noms en ASCII, les plus fréquents, n'ont pas besoin de la décomposition Unicode
+		for (int i = 0; i < texte.length(); i++) {
+			if (texte.charAt(i) > 127) {
+				texte = ACCENTS.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+				break;
+			}
+		}
+		return texte.toLowerCase(Locale.ROOT);
+	}
+}
@@ -5,12 +5,35 @@ import org.joda.time.LocalDate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Requêtes communes à tous les types d'employés.
+ * Sur une grande table, préférer aux méthodes renvoyant toute une liste :
+ * <ul>
+ *     <li>la pagination par clé : la première page est demandée par une méthode ...OrderBy...IdDesc/IdAsc, les suivantes
+ *     par la méthode ...Apres correspondante avec la clé (salaire ou date d'embauche, id) du dernier employé reçu.
+ *     La requête reprend directement à cette clé par l'index (voir sql/employe_pagination.sql) au lieu de parcourir
+ *     et d'écarter les lignes des pages précédentes : le temps d'une page ne dépend pas de sa profondeur, et il n'y a
+ *     pas de requête COUNT. Le Pageable ne sert qu'à limiter le nombre d'employés et doit être en page 0
+ *     (new PageRequest(0, taille)) ;</li>
+ *     <li>les méthodes stream..., qui lisent les employés au fur et à mesure par paquets de {@link #TAILLE_PAQUET}
+ *     (curseur côté serveur avec useCursorFetch=true pour MySQL). Elles doivent être appelées dans une transaction,
+ *     en lecture seule de préférence, et le Stream fermé après usage (try-with-resources) ; pour que la mémoire reste
+ *     constante, les employés lus doivent être détachés du contexte de persistance (EntityManager.detach ou clear).</li>
+ * </ul>
+ */
 public interface BaseEmployeRepository<T extends Employe> extends PagingAndSortingRepository<T, Long> {
+
+    //Nombre de lignes lues à la fois par les méthodes stream...
+    String TAILLE_PAQUET = "1000";
+
     T findByMatricule(String matricule);
 
     List<T> findByNomAndPrenom(String nom, String prenom);
@@ -22,6 +45,30 @@ public interface BaseEmployeRepository<T extends Employe> extends PagingAndSorti
 
     Page<T> findByNomIgnoreCase(String nom, Pageable pageable);
 
+    /**
+     * Recherche par l'index du nom normalisé, à préférer à findByNomIgnoreCase
+     * @param nomRecherche le nom normalisé par NormalisationNom
+     * @return les employés portant ce nom, aux majuscules et accents près
+     */
+    List<T> findByNomRecherche(String nomRecherche);
+
+    /**
+     * Recherche par les index du nom et du prénom normalisés, à préférer à findByNomOrPrenomAllIgnoreCase
+     * @param nomOuPrenom le nom ou le prénom normalisé par NormalisationNom
+     * @return les employés portant ce nom ou ce prénom, aux majuscules et accents près
+     */
+    @Query("select e from #{#entityName} e where e.nomRecherche = :nomOuPrenom or e.prenomRecherche = :nomOuPrenom")
+    List<T> findByNomOuPrenomRecherche(@Param("nomOuPrenom") String nomOuPrenom);
+
+    /**
+     * @param debut le début du nom ou du prénom normalisé par NormalisationNom, avec %, _ et ! précédés de ! (voir EmployeService)
+     * @param pageable le nombre maximum d'employés, en page 0
+     * @return les employés dont le nom ou le prénom commence ainsi, aux majuscules et accents près
+     */
+    @Query("select e from #{#entityName} e where e.nomRecherche like concat(:debut, '%') escape '!'"
+            + " or e.prenomRecherche like concat(:debut, '%') escape '!'")
+    List<T> findByDebutNomOuPrenomRecherche(@Param("debut") String debut, Pageable pageable);
+
     List<T> findByDateEmbaucheBefore(LocalDate date);
 
     List<T> findByDateEmbaucheAfter(LocalDate date);
@@ -30,4 +77,95 @@ public interface BaseEmployeRepository<T extends Employe> extends PagingAndSorti
 
     @Query(value = "SELECT * FROM Employe WHERE salaire > (SELECT avg(e2.salaire) FROM Employe e2)", nativeQuery = true)
     List<T> findEmployePlusRiches();
+
+    /**
+     * @return le salaire moyen de tous les employés, seuil de findEmployePlusRiches, null s'il n'y a aucun employé.
+     * Pour paginer les employés les plus riches, le calculer une fois puis paginer par findBySalaireGreaterThan...
+     */
+    @Query(value = "SELECT avg(salaire) FROM Employe", nativeQuery = true)
+    Double findSalaireMoyen();
+
+    /**
+     * Première page des employés dont le salaire dépasse un seuil, par salaire décroissant puis id décroissant
+     * @param salaire le seuil
+     * @param pageable la taille de la page, en page 0
+     * @return les employés de la page
+     */
+    List<T> findBySalaireGreaterThanOrderBySalaireDescIdDesc(Double salaire, Pageable pageable);
+
+    /**
+     * Page suivant l'employé de clé (dernierSalaire, dernierId) parmi ceux dont le salaire dépasse un seuil
+     * @param salaire le seuil
+     * @param dernierSalaire le salaire du dernier employé de la page précédente
+     * @param dernierId l'id du dernier employé de la page précédente
+     * @param pageable la taille de la page, en page 0
+     * @return les employés de la page
+     */
+    @Query("select e from #{#entityName} e where e.salaire > :salaire"
+            + " and (e.salaire < :dernierSalaire or (e.salaire = :dernierSalaire and e.id < :dernierId))"
+            + " order by e.salaire desc, e.id desc")
+    List<T> findBySalaireGreaterThanApres(@Param("salaire") Double salaire, @Param("dernierSalaire") Double dernierSalaire,
+                                          @Param("dernierId") Long dernierId, Pageable pageable);
+
+    /**
+     * Première page des employés embauchés avant une date, par date d'embauche puis id croissants
+     * @param date la date
+     * @param pageable la taille de la page, en page 0
+     * @return les employés de la page
+     */
+    List<T> findByDateEmbaucheBeforeOrderByDateEmbaucheAscIdAsc(LocalDate date, Pageable pageable);
+
+    /**
+     * Page suivant l'employé de clé (derniereDate, dernierId) parmi ceux embauchés avant une date
+     * @param date la date
+     * @param derniereDate la date d'embauche du dernier employé de la page précédente
+     * @param dernierId l'id du dernier employé de la page précédente
+     * @param pageable la taille de la page, en page 0
+     * @return les employés de la page
+     */
+    @Query("select e from #{#entityName} e where e.dateEmbauche < :date"
+            + " and (e.dateEmbauche > :derniereDate or (e.dateEmbauche = :derniereDate and e.id > :dernierId))"
+            + " order by e.dateEmbauche asc, e.id asc")
+    List<T> findByDateEmbaucheBeforeApres(@Param("date") LocalDate date, @Param("derniereDate") LocalDate derniereDate,
+                                          @Param("dernierId") Long dernierId, Pageable pageable);
+
+    /**
+     * Première page des employés embauchés après une date, par date d'embauche puis id croissants
+     * @param date la date
+     * @param pageable la taille de la page, en page 0
+     * @return les employés de la page
+     */
+    List<T> findByDateEmbaucheAfterOrderByDateEmbaucheAscIdAsc(LocalDate date, Pageable pageable);
+
+    /**
+     * Page suivant l'employé de clé (derniereDate, dernierId) parmi ceux embauchés après une date
+     * @param date la date
+     * @param derniereDate la date d'embauche du dernier employé de la page précédente
+     * @param dernierId l'id du dernier employé de la page précédente
+     * @param pageable la taille de la page, en page 0
+     * @return les employés de la page
+     */
+    @Query("select e from #{#entityName} e where e.dateEmbauche > :date"
+            + " and (e.dateEmbauche > :derniereDate or (e.dateEmbauche = :derniereDate and e.id > :dernierId))"
+            + " order by e.dateEmbauche asc, e.id asc")
+    List<T> findByDateEmbaucheAfterApres(@Param("date") LocalDate date, @Param("derniereDate") LocalDate derniereDate,
+                                         @Param("dernierId") Long dernierId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_PAQUET))
+    Stream<T> streamBySalaireGreaterThanOrderBySalaireDesc(Double salaire);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_PAQUET))
+    Stream<T> streamByDateEmbaucheBefore(LocalDate date);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_PAQUET))
+    Stream<T> streamByDateEmbaucheAfter(LocalDate date);
+
+    /**
+     * @return les employés dont le salaire dépasse la moyenne de tous les employés, comme findEmployePlusRiches mais
+     * en JPQL : la requête native ne renvoie pas les colonnes des tables filles, nécessaires pour instancier des employés
+     * qui ne sont pas déjà dans le contexte de persistance
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_PAQUET))
+    @Query("select e from #{#entityName} e where e.salaire > (select avg(e2.salaire) from Employe e2)")
+    Stream<T> streamEmployePlusRiches();
 }
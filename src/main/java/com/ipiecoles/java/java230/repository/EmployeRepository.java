@@ -1,6 +1,28 @@
 package com.ipiecoles.java.java230.repository;
 
 import com.ipiecoles.java.java230.model.Employe;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
 
 public interface EmployeRepository extends BaseEmployeRepository<Employe> {
+
+    @Query("select e.salaire from Employe e where e.id = :id")
+    Double findSalaireById(@Param("id") Long id);
+
+    @Query("select min(e.salaire) from Employe e")
+    Double findSalaireMin();
+
+    @Query("select max(e.salaire) from Employe e")
+    Double findSalaireMax();
+
+    /**
+     * @return les couples (salaire, nombre d'employés ayant ce salaire), à lire dans une transaction
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_PAQUET))
+    @Query("select e.salaire, count(e) from Employe e where e.salaire is not null group by e.salaire")
+    Stream<Object[]> streamRepartitionSalaires();
 }
@@ -0,0 +1,97 @@
+package com.ipiecoles.java.java230.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Vérifie au démarrage que la base contient les tables et colonnes créées par les scripts de src/main/resources/sql.
+ * Hibernate ne modifie pas la base (spring.jpa.hibernate.ddl-auto=none) : sans cette vérification, une colonne
+ * manquante ne serait découverte qu'à la première requête sur Employe, qui échouerait comme toutes les suivantes.
+ * Si schema.migration-auto est vrai, les scripts manquants sont exécutés dans l'ordre ; sinon le démarrage échoue
+ * en indiquant les scripts à exécuter.
+ * Le schéma étant créé par Hibernate lorsque ddl-auto le demande, la vérification attend la fabrique d'EntityManager.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class VerificationSchema {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificationSchema.class);
+
+    //Scripts dans l'ordre d'exécution, avec pour chacun une table et une colonne qu'il crée
+    private static final String[][] SCRIPTS = {
+            {"sql/employe_id.sql", "employe_id", "next_val"},
+            {"sql/employe_delta.sql", "Employe", "empreinteLigne"},
+            {"sql/employe_recherche.sql", "Employe", "nomRecherche"}
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Si vrai, les scripts dont la colonne est absente sont exécutés au démarrage au lieu de le faire échouer
+     */
+    @Value("${schema.migration-auto:false}")
+    private boolean migrationAuto = false;
+
+    /**
+     * Méthode qui recherche les scripts non exécutés sur la base, et les exécute si la migration automatique est active
+     * @throws IllegalStateException si des scripts n'ont pas été exécutés et que la migration automatique est désactivée
+     * @throws SQLException si la base ne peut pas être lue ou si un script échoue
+     */
+    @PostConstruct
+    public void verifier() throws SQLException {
+        List<String> manquants = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (String[] script : SCRIPTS) {
+                if (colonneExiste(connection, script[1], script[2])) {
+                    continue;
+                }
+                if (migrationAuto) {
+                    logger.info("colonne " + script[1] + "." + script[2] + " absente, exécution du script " + script[0]);
+                    ScriptUtils.executeSqlScript(connection, new ClassPathResource(script[0]));
+                } else {
+                    manquants.add(script[0] + " (colonne " + script[1] + "." + script[2] + " absente)");
+                }
+            }
+        }
+        if (!manquants.isEmpty()) {
+            throw new IllegalStateException("Schéma de la base incomplet, exécuter dans l'ordre les scripts de src/main/resources : "
+                    + String.join(", ", manquants) + " ; ou démarrer avec schema.migration-auto=true");
+        }
+    }
+
+    private boolean colonneExiste(Connection connection, String table, String colonne) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet colonnes = metaData.getColumns(connection.getCatalog(), null,
+                identifiant(metaData, table), identifiant(metaData, colonne))) {
+            return colonnes.next();
+        }
+    }
+
+    //Nom tel qu'il est enregistré par la base, en majuscules pour H2 par exemple
+    private String identifiant(DatabaseMetaData metaData, String nom) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return nom.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return nom.toLowerCase(Locale.ROOT);
+        }
+        return nom;
+    }
+}
@@ -1,9 +1,17 @@
 package com.ipiecoles.java.java230.service;
 
 import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.NormalisationNom;
 import com.ipiecoles.java.java230.repository.EmployeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
 
 @Service
 public class EmployeService {
@@ -11,6 +19,9 @@ public class EmployeService {
     @Autowired
     private EmployeRepository employeRepository;
 
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
     public Employe findById(Long id){
         return employeRepository.findOne(id);
     }
@@ -19,11 +30,101 @@ public class EmployeService {
         return employeRepository.count();
     }
 
+    @Transactional
     public void deleteEmploye(Long id){
+        Double salaire = employeRepository.findSalaireById(id);
         employeRepository.delete(id);
+        apresValidation(() -> statistiquesSalaires.retirer(salaire));
     }
 
+    @Transactional
     public Employe creerEmploye(Employe e) {
-        return employeRepository.save(e);
+        //Un employé qui a déjà un identifiant est mis à jour : son ancien salaire est remplacé dans les statistiques
+        Double ancienSalaire = e.getId() == null ? null : employeRepository.findSalaireById(e.getId());
+        Employe enregistre = employeRepository.save(e);
+        Double nouveauSalaire = enregistre.getSalaire();
+        apresValidation(() -> statistiquesSalaires.modifier(ancienSalaire, nouveauSalaire));
+        return enregistre;
+    }
+
+    /**
+     * Méthode qui renvoie les employés dont le salaire dépasse la moyenne, comme employeRepository.findEmployePlusRiches,
+     * mais par un parcours de l'index des salaires à partir de la moyenne tenue par StatistiquesSalaires au lieu de
+     * deux parcours de la table
+     * @return les employés par salaire décroissant
+     */
+    public List<Employe> findEmployePlusRiches() {
+        Double moyenne = statistiquesSalaires.getMoyenne();
+        return moyenne == null ? Collections.emptyList() : employeRepository.findBySalaireGreaterThanOrderBySalaireDesc(moyenne);
+    }
+
+    /**
+     * Méthode qui renvoie une page des employés dont le salaire dépasse la moyenne, par salaire puis id décroissants
+     * @param dernier le dernier employé de la page précédente, null pour la première page
+     * @param taille le nombre d'employés de la page
+     * @return les employés de la page
+     */
+    public List<Employe> findEmployePlusRiches(Employe dernier, int taille) {
+        Double moyenne = statistiquesSalaires.getMoyenne();
+        if (moyenne == null) {
+            return Collections.emptyList();
+        }
+        if (dernier == null) {
+            return employeRepository.findBySalaireGreaterThanOrderBySalaireDescIdDesc(moyenne, new PageRequest(0, taille));
+        }
+        return employeRepository.findBySalaireGreaterThanApres(moyenne, dernier.getSalaire(), dernier.getId(), new PageRequest(0, taille));
+    }
+
+    /**
+     * Méthode qui recherche les employés par nom, sans tenir compte des majuscules ni des accents, par l'index du nom
+     * normalisé
+     * @param nom le nom recherché
+     * @return les employés portant ce nom
+     */
+    public List<Employe> rechercherParNom(String nom) {
+        return employeRepository.findByNomRecherche(NormalisationNom.normaliser(nom));
+    }
+
+    /**
+     * Méthode qui recherche les employés par nom ou prénom, sans tenir compte des majuscules ni des accents
+     * @param nomOuPrenom le nom ou le prénom recherché
+     * @return les employés portant ce nom ou ce prénom
+     */
+    public List<Employe> rechercherParNomOuPrenom(String nomOuPrenom) {
+        return employeRepository.findByNomOuPrenomRecherche(NormalisationNom.normaliser(nomOuPrenom));
+    }
+
+    /**
+     * Méthode qui recherche les employés dont le nom ou le prénom commence par un texte, sans tenir compte des
+     * majuscules ni des accents
+     * @param debut le début du nom ou du prénom
+     * @param max le nombre maximum d'employés renvoyés
+     * @return au plus max employés, aucun si debut est null
+     */
+    public List<Employe> rechercherParDebutNomOuPrenom(String debut, int max) {
+        if (debut == null) {
+            return Collections.emptyList();
+        }
+        //Les caractères spéciaux de like sont échappés par !, le caractère d'échappement de la requête
+        String motif = NormalisationNom.normaliser(debut).replaceAll("([!%_])", "!$1");
+        return employeRepository.findByDebutNomOuPrenomRecherche(motif, new PageRequest(0, max));
+    }
+
+    /**
+     * Méthode qui exécute une mise à jour des statistiques une fois la transaction en cours validée, tout de suite
+     * s'il n'y a pas de transaction
+     * @param action la mise à jour
+     */
+    private void apresValidation(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,301 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Statistiques des salaires de tous les employés (nombre, somme, moyenne, minimum, maximum, quantiles), tenues en
+ * mémoire pour ne pas parcourir la table Employe à chaque consultation.
+ * Elles sont chargées depuis la base à la première consultation, puis mises à jour par EmployeService à chaque
+ * création, modification ou suppression d'employé, et rechargées toutes les statistiques.salaires.rafraichissement-ms
+ * pour prendre en compte les modifications faites hors d'EmployeService (import, autre application).
+ * Les quantiles sont calculés sur une répartition des salaires par intervalles de statistiques.salaires.largeur-intervalle :
+ * ils sont approchés à une largeur d'intervalle près. Le minimum et le maximum sont exacts : lorsque l'employé qui les
+ * détient est retiré, ils sont relus en base (par l'index de sql/employe_pagination.sql) à la consultation suivante.
+ * Les salaires nuls ne sont pas comptés, comme dans avg(salaire).
+ * Les chargements et les relectures en base se font hors du verrou : les mises à jour après validation ne les attendent
+ * pas, et toutes les valeurs d'une consultation sont lues sous le verrou dans un même état des statistiques.
+ */
+@Service
+public class StatistiquesSalaires {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatistiquesSalaires.class);
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${statistiques.salaires.largeur-intervalle:100}")
+    private double largeurIntervalle = 100;
+
+    /**
+     * Délai entre deux rechargements depuis la base, 0 pour ne jamais recharger
+     */
+    @Value("${statistiques.salaires.rafraichissement-ms:600000}")
+    private long rafraichissementMs = 600000;
+
+    //Statistiques courantes, null tant qu'elles n'ont pas été chargées ou après invalider()
+    private Repartition repartition;
+
+    private ScheduledExecutorService planificateur;
+
+    @PostConstruct
+    public void demarrer() {
+        if (rafraichissementMs > 0) {
+            planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "statistiques-salaires");
+                thread.setDaemon(true);
+                return thread;
+            });
+            planificateur.scheduleWithFixedDelay(this::rafraichirSiChargees, rafraichissementMs, rafraichissementMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+        }
+    }
+
+    private void rafraichirSiChargees() {
+        synchronized (this) {
+            if (repartition == null) {
+                return;
+            }
+        }
+        try {
+            rafraichir();
+        } catch (RuntimeException e) {
+            logger.warn("Rechargement des statistiques des salaires impossible : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Méthode qui recharge les statistiques depuis la base. Une mise à jour faite pendant le rechargement peut être
+     * comptée deux fois ou pas du tout, jusqu'au rechargement suivant.
+     */
+    public void rafraichir() {
+        Repartition nouvelle = new Repartition(largeurIntervalle);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.execute(status -> {
+            try (Stream<Object[]> salaires = employeRepository.streamRepartitionSalaires()) {
+                salaires.forEach(ligne -> nouvelle.ajouter((Double) ligne[0], (Long) ligne[1]));
+            }
+            return null;
+        });
+        synchronized (this) {
+            repartition = nouvelle;
+        }
+    }
+
+    /**
+     * Méthode qui fait recharger les statistiques depuis la base à la prochaine consultation, après une modification
+     * en masse (import)
+     */
+    public synchronized void invalider() {
+        repartition = null;
+    }
+
+    /**
+     * @param salaire le salaire d'un employé créé, null pour ne rien compter
+     */
+    public synchronized void ajouter(Double salaire) {
+        if (repartition != null && salaire != null) {
+            repartition.ajouter(salaire, 1);
+        }
+    }
+
+    /**
+     * @param salaire le salaire d'un employé supprimé, null pour ne rien retirer
+     */
+    public synchronized void retirer(Double salaire) {
+        if (repartition != null && salaire != null) {
+            repartition.retirer(salaire);
+        }
+    }
+
+    /**
+     * @param ancien l'ancien salaire d'un employé, null s'il n'était pas compté
+     * @param nouveau son nouveau salaire, null s'il ne doit plus être compté
+     */
+    public synchronized void modifier(Double ancien, Double nouveau) {
+        if (ancien == null ? nouveau != null : !ancien.equals(nouveau)) {
+            retirer(ancien);
+            ajouter(nouveau);
+        }
+    }
+
+    public long getNombre() {
+        return lire(stats -> stats.nombre);
+    }
+
+    public double getSomme() {
+        return lire(stats -> stats.somme);
+    }
+
+    /**
+     * @return le salaire moyen, null s'il n'y a aucun salaire
+     */
+    public Double getMoyenne() {
+        return lire(stats -> stats.nombre == 0 ? null : stats.somme / stats.nombre);
+    }
+
+    /**
+     * @return le plus petit salaire, null s'il n'y a aucun salaire
+     */
+    public Double getMin() {
+        return extremes()[0];
+    }
+
+    /**
+     * @return le plus grand salaire, null s'il n'y a aucun salaire
+     */
+    public Double getMax() {
+        return extremes()[1];
+    }
+
+    /**
+     * @param q le quantile, entre 0 et 1 (0.5 pour la médiane)
+     * @return un salaire supérieur ou égal au quantile, d'au plus une largeur d'intervalle ; null s'il n'y a aucun salaire
+     */
+    public Double quantile(double q) {
+        //Relit si besoin le minimum et le maximum en base, hors du verrou, pour borner le quantile
+        extremes();
+        return lire(stats -> stats.quantile(q));
+    }
+
+    /**
+     * Méthode qui applique une lecture aux statistiques sous le verrou, après les avoir chargées si besoin.
+     * Le chargement parcourt la table hors du verrou, pour ne pas bloquer les mises à jour pendant ce temps.
+     * @param lecture la lecture à appliquer
+     * @return le résultat de la lecture
+     */
+    private <T> T lire(Function<Repartition, T> lecture) {
+        while (true) {
+            synchronized (this) {
+                if (repartition != null) {
+                    return lecture.apply(repartition);
+                }
+            }
+            rafraichir();
+        }
+    }
+
+    /**
+     * @return le minimum et le maximum, relus en base si l'employé qui les détenait a été retiré
+     */
+    private Double[] extremes() {
+        Double[] extremes = lire(stats -> stats.extremesAJour ? new Double[]{stats.min, stats.max} : null);
+        if (extremes != null) {
+            return extremes;
+        }
+        Double min = employeRepository.findSalaireMin();
+        Double max = employeRepository.findSalaireMax();
+        synchronized (this) {
+            if (repartition != null) {
+                repartition.min = min;
+                repartition.max = max;
+                repartition.extremesAJour = true;
+            }
+        }
+        return new Double[]{min, max};
+    }
+
+    /**
+     * Nombre de salaires par intervalle de salaire, avec leur nombre, leur somme, leur minimum et leur maximum
+     */
+    private static class Repartition {
+
+        private final double largeurIntervalle;
+
+        private final TreeMap<Long, Long> intervalles = new TreeMap<>();
+
+        private long nombre;
+
+        private double somme;
+
+        private Double min;
+
+        private Double max;
+
+        private boolean extremesAJour = true;
+
+        private Repartition(double largeurIntervalle) {
+            this.largeurIntervalle = largeurIntervalle;
+        }
+
+        private void ajouter(double salaire, long nombreSalaires) {
+            intervalles.merge((long) Math.floor(salaire / largeurIntervalle), nombreSalaires, Long::sum);
+            nombre += nombreSalaires;
+            somme += salaire * nombreSalaires;
+            if (extremesAJour) {
+                min = min == null ? salaire : Math.min(min, salaire);
+                max = max == null ? salaire : Math.max(max, salaire);
+            }
+        }
+
+        /**
+         * @param q le quantile, entre 0 et 1
+         * @return la borne supérieure de l'intervalle du quantile, ramenée entre le minimum et le maximum s'ils sont
+         * à jour ; null s'il n'y a aucun salaire
+         */
+        private Double quantile(double q) {
+            if (nombre == 0) {
+                return null;
+            }
+            long rang = Math.max(1, (long) Math.ceil(q * nombre));
+            long cumul = 0;
+            double borne = (intervalles.lastKey() + 1) * largeurIntervalle;
+            for (Map.Entry<Long, Long> intervalle : intervalles.entrySet()) {
+                cumul += intervalle.getValue();
+                if (cumul >= rang) {
+                    borne = (intervalle.getKey() + 1) * largeurIntervalle;
+                    break;
+                }
+            }
+            return extremesAJour && min != null && max != null ? Math.max(min, Math.min(borne, max)) : borne;
+        }
+
+        private void retirer(double salaire) {
+            long intervalle = (long) Math.floor(salaire / largeurIntervalle);
+            Long restants = intervalles.computeIfPresent(intervalle, (cle, valeur) -> valeur - 1);
+            if (restants == null) {
+                //Salaire absent de la répartition : elle sera corrigée au prochain rechargement
+                return;
+            }
+            if (restants == 0) {
+                intervalles.remove(intervalle);
+            }
+            nombre--;
+            somme -= salaire;
+            if (nombre == 0) {
+                somme = 0;
+                min = null;
+                max = null;
+                extremesAJour = true;
+            } else if (min != null && salaire <= min || max != null && salaire >= max) {
+                extremesAJour = false;
+            }
+        }
+    }
+}
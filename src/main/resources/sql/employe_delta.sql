@@ -0,0 +1,7 @@
+-- Columns and indexes used by the incremental import (batch.delta.actif).
+-- empreinteLigne holds a hash of the CSV line each employee was imported from; rows imported before this column
+-- existed have no hash and are updated once by the next incremental import.
+ALTER TABLE Employe ADD COLUMN empreinteLigne BIGINT NULL;
+
+-- Matricules identify employees across imports. Remove duplicates before creating this index.
+CREATE UNIQUE INDEX ux_employe_matricule ON Employe (matricule);
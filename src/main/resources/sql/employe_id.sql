@@ -0,0 +1,9 @@
+-- Table used by EmployeIdGenerator to hand out blocks of Employe identifiers.
+-- With the pooled-lo optimizer, next_val is the first identifier of the next block.
+CREATE TABLE IF NOT EXISTS employe_id (
+  sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+  next_val BIGINT NOT NULL
+);
+
+INSERT INTO employe_id (sequence_name, next_val)
+SELECT 'Employe', COALESCE(MAX(id), 0) + 1 FROM Employe;
@@ -0,0 +1,4 @@
+-- Indexes used by the keyset pagination of BaseEmployeRepository (find...Apres methods): each page seeks directly
+-- to the (salaire, id) or (dateEmbauche, id) key of the previous page's last employee.
+CREATE INDEX ix_employe_salaire_id ON Employe (salaire, id);
+CREATE INDEX ix_employe_date_embauche_id ON Employe (dateEmbauche, id);
@@ -0,0 +1,12 @@
+-- Columns and indexes used by the name search (EmployeService.rechercher...): nomRecherche and prenomRecherche hold
+-- the lower-cased, accent-free name and first name, set by Employe on every insert and update.
+-- The accent and case insensitive collation also lets rows backfilled below, whose accents are kept by LOWER(),
+-- match the normalized search value until they are next updated.
+ALTER TABLE Employe
+    ADD COLUMN nomRecherche VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL,
+    ADD COLUMN prenomRecherche VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL;
+
+UPDATE Employe SET nomRecherche = LOWER(TRIM(nom)), prenomRecherche = LOWER(TRIM(prenom));
+
+CREATE INDEX ix_employe_nom_recherche ON Employe (nomRecherche);
+CREATE INDEX ix_employe_prenom_recherche ON Employe (prenomRecherche);
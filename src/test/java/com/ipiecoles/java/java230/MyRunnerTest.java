@@ -0,0 +1,520 @@
+package com.ipiecoles.java.java230;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.ipiecoles.java.java230.batch.EmployeBatchWriter;
+import com.ipiecoles.java.java230.batch.EmployeParser;
+import com.ipiecoles.java.java230.batch.EtatEmploye;
+import com.ipiecoles.java.java230.batch.FichierRejets;
+import com.ipiecoles.java.java230.batch.MetriquesBatch;
+import com.ipiecoles.java.java230.exceptions.ImportInterrompuException;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class MyRunnerTest {
+
+    //Erreurs attendues pour le fichier src/main/resources/employes.csv
+    public static final String[] ERREURS_EMPLOYES_CSV = {
+            "Ligne 5 : Type d'employé inconnu : XXXXXX,durand,jacques,04/06/2013,1200.5 => XXXXXX,durand,jacques,04/06/2013,1200.5",
+            "Ligne 6 : La chaîne M12 ne respecte pas l'expression régulière ^[MTC][0-9]{5}$ => M12,durand,jacques,04/06/2013,1200.5",
+            "Ligne 7 : La ligne manager ne contient pas 5 éléments mais 3  => M12345,durand,jacques,",
+            "Ligne 8 : La ligne manager ne contient pas 5 éléments mais 7  => M12345,durand,jacques,04/06/2013,1200.5,dfgdfg,dfgdfg",
+            "Ligne 9 : 04/99/2013 ne respecte pas le format de date dd/MM/yyyy => M12345,durand,jacques,04/99/2013,1200.5",
+            "Ligne 10 : sdf n'est pas un nombre valide pour un salaire  => M12345,durand,jacques,04/06/2013,sdf",
+            "Ligne 11 : La chaîne C12 ne respecte pas l'expression régulière ^[MTC][0-9]{5}$ => C12,aubert,michel,05/09/2018,2200.5,150000.0,100",
+            "Ligne 12 : La ligne manager ne contient pas 7 éléments mais 6  => C12345,aubert,michel,05/09/2018,2200.5,150000.0 => C12345,aubert,michel,05/09/2018,2200.5,150000.0",
+            "Ligne 13 : La ligne manager ne contient pas 7 éléments mais 9  => C12345,aubert,michel,05/09/2018,2200.5,150000.0,100,dfgdfg,dfgdfg => C12345,aubert,michel,05/09/2018,2200.5,150000.0,100,dfgdfg,dfgdfg",
+            "Ligne 14 : 05/09/XX ne respecte pas le format de date dd/MM/yyyy => C12345,aubert,michel,05/09/XX,2200.5,150000.0,100",
+            "Ligne 15 : xxx n'est pas un nombre valide pour un salaire  => C12345,aubert,michel,05/09/2018,xxx,150000.0,100",
+            "Ligne 16 : Le chiffre d'affaire du commercial est incorrect : xxx  => C12345,aubert,michel,05/09/2018,2200.5,xxx,100",
+            "Ligne 17 : La performance du commercial est incorrecte : xxx  => C12345,aubert,michel,05/09/2018,2200.5,150000.0,xxx",
+            "Ligne 18 : La chaîne T12 ne respecte pas l'expression régulière ^[MTC][0-9]{5}$ => T12,dupont,pierre,12/03/2003,1700.5,5,M87654",
+            "Ligne 19 : La ligne technicien ne contient pas 7 éléments mais 6   => T12345,dupont,pierre,12/03/2003,1700.5,5",
+            "Ligne 20 : La ligne technicien ne contient pas 7 éléments mais 9   => T12345,dupont,pierre,12/03/2003,1700.5,5,M00001,dfgdfg,dfgdfg",
+            "Ligne 21 : 12/03/XX ne respecte pas le format de date dd/MM/yyyy => T12345,dupont,pierre,12/03/XX,1700.5,5,M87654",
+            "Ligne 22 : xxx n'est pas un nombre valide pour un salaire  => T12345,dupont,pierre,12/03/2003,xxx,5,M87654",
+            "Ligne 23 : Le grade doit être compris entre 1 et 5 : 9  => T12345,dupont,pierre,12/03/2003,1700.5,9,M87654",
+            "Ligne 24 : Le grade du technicien est incorrect : X  => T12345,dupont,pierre,12/03/2003,1700.5,X,M87654",
+            "Ligne 25 : Le manager de matricule xxx n'a pas été trouvé dans le fichier ou en base de données  => T12345,dupont,pierre,12/03/2003,1700.5,5,xxx",
+            "Ligne 26 : Le manager de matricule M99999 n'a pas été trouvé dans le fichier ou en base de données  => T12345,dupont,pierre,12/03/2003,1700.5,5,M99999"
+    };
+
+    @Rule
+    public TemporaryFolder repertoire = new TemporaryFolder();
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(MyRunner.class);
+
+    private ListAppender<ILoggingEvent> appender;
+
+    private MyRunner myRunner;
+
+    //Managers présents dans la base simulée et méthodes du repository appelées
+    private List<Manager> managersEnBase = new ArrayList<>();
+
+    private List<String> appelsRepository = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        myRunner = new MyRunner();
+        ReflectionTestUtils.setField(myRunner, "managerRepository", managerRepository());
+    }
+
+    @After
+    public void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    private ManagerRepository managerRepository() {
+        return (ManagerRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ManagerRepository.class}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(managersEnBase, args);
+            }
+            appelsRepository.add(method.getName());
+            switch (method.getName()) {
+                case "findByMatriculeIn":
+                    return managersEnBase.stream().filter(m -> ((Collection<?>) args[0]).contains(m.getMatricule())).collect(Collectors.toList());
+                case "findByMatricule":
+                    return managersEnBase.stream().filter(m -> m.getMatricule().equals(args[0])).findFirst().orElse(null);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private List<String> erreurs() {
+        return appender.list.stream()
+                .filter(e -> e.getLevel() == Level.ERROR)
+                .map(ILoggingEvent::getFormattedMessage)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testReadFile() {
+        //When
+        List<Employe> employes = myRunner.readFile("employes.csv");
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M87654", "T98765", "T98764", "C32154");
+        Assertions.assertThat(erreurs()).containsExactly(ERREURS_EMPLOYES_CSV);
+    }
+
+    @Test
+    public void testImporterFichierIntrouvable() {
+        //Given
+        List<Employe> enregistres = new ArrayList<>();
+        ReflectionTestUtils.setField(myRunner, "employeBatchWriter", new EmployeBatchWriter() {
+            @Override
+            public void ecrire(List<Employe> employes) {
+                enregistres.addAll(employes);
+            }
+        });
+
+        //When/Then
+        Assertions.assertThat(myRunner.importer(repertoire.getRoot().toPath().resolve("absent.csv").toString())).isFalse();
+        Assertions.assertThat(enregistres).isEmpty();
+        Assertions.assertThat(myRunner.importer("employes.csv")).isTrue();
+        Assertions.assertThat(enregistres).hasSize(4);
+    }
+
+    @Test
+    public void testReadFileMetriques() {
+        //Given
+        MetriquesBatch metriquesBatch = new MetriquesBatch();
+        ReflectionTestUtils.setField(myRunner, "metriquesBatch", metriquesBatch);
+
+        //When
+        myRunner.readFile("employes.csv");
+
+        //Then
+        String bilan = appender.list.stream().map(ILoggingEvent::getFormattedMessage)
+                .filter(m -> m.startsWith("metriques_import ")).findFirst().orElse("");
+        Assertions.assertThat(bilan).startsWith("metriques_import fichier=employes.csv duree_ms=")
+                .contains(" lignes=26 ", " employes=4 ", " rejets=22 ", " rejets.MATRICULE=3 ", " rejets.MANAGER_INTROUVABLE=2 ",
+                        " lecture.n=1 ", " rattachement.n=1 ", " ecriture.n=1 ", " tas_max_mo=");
+        Assertions.assertThat(metriquesBatch.getNbImports()).isEqualTo(1);
+        Assertions.assertThat(metriquesBatch.getLignes()).isEqualTo(26);
+        Assertions.assertThat(metriquesBatch.getRejets()).containsEntry("TYPE_INCONNU", 1L).containsEntry("MATRICULE_EN_DOUBLE", 0L);
+        Assertions.assertThat(metriquesBatch.getBilanDernierImport()).isEqualTo(bilan);
+    }
+
+    @Test
+    public void testReadFileParFenetre() {
+        //Given
+        ReflectionTestUtils.setField(myRunner, "fenetre", 3);
+        List<Integer> tailles = new ArrayList<>();
+
+        //When
+        long nbLignes = myRunner.readFile("employes.csv", employes -> tailles.add(employes.size()));
+
+        //Then
+        Assertions.assertThat(nbLignes).isEqualTo(26);
+        Assertions.assertThat(tailles).containsExactly(3, 1);
+        Assertions.assertThat(erreurs()).containsExactly(ERREURS_EMPLOYES_CSV);
+    }
+
+    @Test
+    public void testReadFileParallele() {
+        //Given
+        ReflectionTestUtils.setField(myRunner, "parallelisme", 4);
+        ReflectionTestUtils.setField(myRunner, "tailleLot", 2);
+
+        //When
+        List<Employe> employes = myRunner.readFile("employes.csv");
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M87654", "T98765", "T98764", "C32154");
+        Assertions.assertThat(erreurs()).containsExactly(ERREURS_EMPLOYES_CSV);
+    }
+
+    @Test
+    public void testReadFilePlusieursEcrivains() throws Exception {
+        //Given
+        Path fichier = repertoire.newFile("pipeline.csv").toPath();
+        Files.write(fichier, Arrays.asList(
+                "M11111,dupont,jacques,04/06/2013,1200.5",
+                "C33333,aubert,michel,05/09/2018,2200.5,150000,100",
+                "T11111,dupont,pierre,12/03/2003,1700.5,5,M11111",
+                "M22222,durand,paul,04/06/2014,1300.5",
+                "T22222,martin,pierre,12/03/2003,1700.5,4,M22222"));
+        ReflectionTestUtils.setField(myRunner, "fenetre", 1);
+        ReflectionTestUtils.setField(myRunner, "tailleLot", 2);
+        ReflectionTestUtils.setField(myRunner, "ecrivains", 3);
+        List<String> enregistres = Collections.synchronizedList(new ArrayList<>());
+
+        //When
+        myRunner.readFile(fichier.toString(), employes -> {
+            //Les managers sont lents à enregistrer : leurs techniciens doivent les attendre
+            if (employes.get(0) instanceof Manager) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            enregistres.add(employes.get(0).getMatricule());
+        });
+
+        //Then
+        Assertions.assertThat(enregistres).containsExactlyInAnyOrder("M11111", "C33333", "T11111", "M22222", "T22222");
+        Assertions.assertThat(enregistres.indexOf("T11111")).isGreaterThan(enregistres.indexOf("M11111"));
+        Assertions.assertThat(enregistres.indexOf("T22222")).isGreaterThan(enregistres.indexOf("M22222"));
+        Assertions.assertThat(enregistres.indexOf("C33333")).isLessThan(enregistres.indexOf("M11111"));
+        Assertions.assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                .anySatisfy(m -> Assertions.assertThat(m).startsWith("étape lecture (1 thread) : 5 lignes"))
+                .anySatisfy(m -> Assertions.assertThat(m).startsWith("étape rattachement (1 thread) : 5 lignes"))
+                .anySatisfy(m -> Assertions.assertThat(m).startsWith("étape écriture (3 threads) : 5 employés"));
+    }
+
+    @Test
+    public void testReadFileListePlusieursEcrivains() {
+        //Given
+        ReflectionTestUtils.setField(myRunner, "fenetre", 1);
+        ReflectionTestUtils.setField(myRunner, "ecrivains", 3);
+
+        //When
+        List<Employe> employes = myRunner.readFile("employes.csv");
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M87654", "T98765", "T98764", "C32154");
+        Assertions.assertThat(ReflectionTestUtils.getField(myRunner, "ecrivains")).isEqualTo(3);
+    }
+
+    @Test
+    public void testReadFileRattachementDiffere() {
+        //Given
+        ReflectionTestUtils.setField(myRunner, "rattachementDiffere", true);
+
+        //When
+        List<Employe> employes = myRunner.readFile("employes-differe.csv");
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M22222", "T11111", "C44444");
+        Assertions.assertThat(((Technicien) employes.get(1)).getManager()).isSameAs(employes.get(0));
+        Assertions.assertThat(erreurs()).containsExactly(
+                "Ligne 2 : Le grade doit être compris entre 1 et 5 : 9  => T11112,dupont,pierre,12/03/2003,1700.5,9,M22222",
+                "Ligne 4 : Le manager de matricule M33333 n'a pas été trouvé dans le fichier ou en base de données  => T11113,dupont,pierre,12/03/2003,1700.5,5,M33333");
+    }
+
+    @Test
+    public void testReadFileSansRattachementDiffere() {
+        //When
+        List<Employe> employes = myRunner.readFile("employes-differe.csv");
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M22222", "C44444");
+        Assertions.assertThat(erreurs()).extracting(e -> e.substring(0, 8)).containsExactly("Ligne 1 ", "Ligne 2 ", "Ligne 4 ");
+    }
+
+    @Test
+    public void testReadFileManagerEnBase() {
+        //Given
+        Manager manager = new Manager();
+        manager.setMatricule("M33333");
+        managersEnBase.add(manager);
+
+        //When
+        List<Employe> employes = myRunner.readFile("employes-differe.csv");
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M22222", "T11113", "C44444");
+        Assertions.assertThat(((Technicien) employes.get(1)).getManager()).isSameAs(manager);
+        Assertions.assertThat(appelsRepository).containsExactly("findByMatriculeIn");
+    }
+
+    @Test
+    public void testReadFileReprise() throws Exception {
+        //Given
+        ReflectionTestUtils.setField(myRunner, "repriseActive", true);
+        ReflectionTestUtils.setField(myRunner, "repertoireReprise", repertoire.getRoot().getPath());
+        ReflectionTestUtils.setField(myRunner, "fenetre", 1);
+        List<String> enregistres = new ArrayList<>();
+        //Les managers enregistrés avant l'arrêt sont retrouvés en base à la reprise
+        Consumer<List<Employe>> enregistrement = employes -> {
+            enregistres.add(employes.get(0).getMatricule());
+            if (employes.get(0) instanceof Manager) {
+                managersEnBase.add((Manager) employes.get(0));
+            }
+        };
+        try {
+            myRunner.readFile("employes.csv", employes -> {
+                if (enregistres.size() == 2) {
+                    throw new IllegalStateException("arrêt brutal");
+                }
+                enregistrement.accept(employes);
+            });
+            Assertions.fail("L'import aurait dû être interrompu");
+        } catch (IllegalStateException e) {
+            Assertions.assertThat(enregistres).containsExactly("M87654", "T98765");
+        }
+        appender.list.clear();
+
+        //When
+        long nbLignes = myRunner.readFile("employes.csv", enregistrement);
+
+        //Then
+        Assertions.assertThat(nbLignes).isEqualTo(26);
+        Assertions.assertThat(enregistres).containsExactly("M87654", "T98765", "T98764", "C32154");
+        Assertions.assertThat(erreurs()).containsExactly(ERREURS_EMPLOYES_CSV);
+        Assertions.assertThat(repertoire.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void testReadFileRejets() throws Exception {
+        //Given
+        ReflectionTestUtils.setField(myRunner, "rejetsActifs", true);
+        ReflectionTestUtils.setField(myRunner, "repertoireRejets", repertoire.getRoot().getPath());
+        ReflectionTestUtils.setField(myRunner, "journaliserRejets", false);
+        ReflectionTestUtils.setField(myRunner, "tailleLot", 5);
+
+        //When
+        myRunner.readFile("employes.csv");
+
+        //Then
+        List<String> rejets = Files.readAllLines(repertoire.getRoot().toPath().resolve("employes.csv.rejets.csv"));
+        Assertions.assertThat(rejets).hasSize(ERREURS_EMPLOYES_CSV.length + 1);
+        Assertions.assertThat(rejets.get(0)).isEqualTo(FichierRejets.ENTETE);
+        Assertions.assertThat(rejets.get(1)).isEqualTo("5;TYPE_INCONNU;XXXXXX,durand,jacques,04/06/2013,1200.5");
+        Assertions.assertThat(rejets.get(19)).isEqualTo("23;GRADE_HORS_LIMITES;T12345,dupont,pierre,12/03/2003,1700.5,9,M87654");
+        Assertions.assertThat(rejets.get(22)).isEqualTo("26;MANAGER_INTROUVABLE;T12345,dupont,pierre,12/03/2003,1700.5,5,M99999");
+        Assertions.assertThat(erreurs()).isEmpty();
+    }
+
+    @Test
+    public void testReadFileMatriculeEnDouble() throws Exception {
+        //Given
+        Path fichier = repertoire.newFile("doublons.csv").toPath();
+        Files.write(fichier, Arrays.asList(
+                "M11111,dupont,jacques,04/06/2013,1200.5",
+                "T22222,dupont,pierre,12/03/2003,1700.5,5,M11111",
+                "M11111,durand,paul,04/06/2014,1300.5",
+                "T22222,martin,pierre,12/03/2003,1700.5,9,M11111",
+                "T22222,martin,pierre,12/03/2003,1700.5,4,M11111"));
+
+        //When
+        List<Employe> employes = myRunner.readFile(fichier.toString());
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getNom).containsExactly("dupont", "dupont");
+        Assertions.assertThat(erreurs()).containsExactly(
+                "Ligne 3 : Le matricule M11111 figure déjà sur une ligne précédente du fichier  => M11111,durand,paul,04/06/2014,1300.5",
+                "Ligne 4 : Le grade doit être compris entre 1 et 5 : 9  => T22222,martin,pierre,12/03/2003,1700.5,9,M11111",
+                "Ligne 5 : Le matricule T22222 figure déjà sur une ligne précédente du fichier  => T22222,martin,pierre,12/03/2003,1700.5,4,M11111");
+    }
+
+    @Test
+    public void testReadFileLigneVide() throws Exception {
+        //Given
+        Path fichier = repertoire.newFile("ligne-vide.csv").toPath();
+        Files.write(fichier, Arrays.asList(
+                "M11111,dupont,jacques,04/06/2013,1200.5",
+                "",
+                "T22222,dupont,pierre,12/03/2003,1700.5,5,M11111"));
+        ReflectionTestUtils.setField(myRunner, "fenetre", 1);
+
+        //When
+        List<Employe> employes = myRunner.readFile(fichier.toString());
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M11111", "T22222");
+        Assertions.assertThat(erreurs()).containsExactly("Ligne 2 : Type d'employé inconnu :  => ");
+    }
+
+    @Test
+    public void testReadFileBudgetErreurs() {
+        //Given
+        ReflectionTestUtils.setField(myRunner, "maxErreurs", 3L);
+        List<Employe> enregistres = new ArrayList<>();
+
+        //When
+        Assertions.assertThatThrownBy(() -> myRunner.readFile("employes.csv", enregistres::addAll))
+                .isInstanceOf(ImportInterrompuException.class);
+
+        //Then
+        Assertions.assertThat(enregistres).isEmpty();
+        Assertions.assertThat(erreurs()).hasSize(5);
+        Assertions.assertThat(erreurs().get(4)).startsWith("import du fichier employes.csv interrompu : budget d'erreurs dépassé, 4 lignes en erreur sur 8");
+    }
+
+    @Test
+    public void testReadFileBudgetErreursPourcentage() {
+        //Given
+        ReflectionTestUtils.setField(myRunner, "pourcentageMaxErreurs", 50.0);
+        ReflectionTestUtils.setField(myRunner, "lignesMinBudgetErreurs", 10L);
+
+        //When
+        Assertions.assertThatThrownBy(() -> myRunner.readFile("employes.csv"))
+                .isInstanceOf(ImportInterrompuException.class)
+                .hasMessageStartingWith("budget d'erreurs dépassé, 6 lignes en erreur sur 10");
+    }
+
+    @Test
+    public void testReadFileChemin() throws Exception {
+        //Given
+        Path fichier = repertoire.newFile("import.csv").toPath();
+        Files.copy(new ClassPathResource("employes.csv").getInputStream(), fichier, StandardCopyOption.REPLACE_EXISTING);
+        ReflectionTestUtils.setField(myRunner, "parallelisme", 3);
+        ReflectionTestUtils.setField(myRunner, "tailleLot", 4);
+
+        //When
+        List<Employe> employes = myRunner.readFile(fichier.toString());
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M87654", "T98765", "T98764", "C32154");
+        Assertions.assertThat(erreurs()).containsExactly(ERREURS_EMPLOYES_CSV);
+    }
+
+    @Test
+    public void testReadFileGzip() throws Exception {
+        //Given
+        Path fichier = repertoire.newFile("employes.csv.gz").toPath();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(fichier))) {
+            Files.copy(new ClassPathResource("employes.csv").getFile().toPath(), out);
+        }
+        ReflectionTestUtils.setField(myRunner, "parallelisme", 3);
+        ReflectionTestUtils.setField(myRunner, "tailleLot", 4);
+
+        //When
+        List<Employe> employes = myRunner.readFile(fichier.toString());
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M87654", "T98765", "T98764", "C32154");
+        Assertions.assertThat(erreurs()).containsExactly(ERREURS_EMPLOYES_CSV);
+    }
+
+    @Test
+    public void testReadFileZip() throws Exception {
+        //Given
+        Path fichier = repertoire.newFile("employes.zip").toPath();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(fichier))) {
+            out.putNextEntry(new ZipEntry("export/"));
+            out.putNextEntry(new ZipEntry("export/employes.csv"));
+            Files.copy(new ClassPathResource("employes.csv").getFile().toPath(), out);
+        }
+
+        //When
+        List<Employe> employes = myRunner.readFile(fichier.toString());
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M87654", "T98765", "T98764", "C32154");
+        Assertions.assertThat(erreurs()).containsExactly(ERREURS_EMPLOYES_CSV);
+    }
+
+    @Test
+    public void testRunDelta() throws Exception {
+        //Given : M87654 inchangé, T98765 modifié, M12345 rejeté dans le fichier et M00002 absent du fichier
+        Map<String, EtatEmploye> base = new HashMap<>();
+        base.put("M87654", new EtatEmploye(1, EmployeParser.empreinte("M87654,dupont,jacques,04/06/2013,1200.5")));
+        base.put("T98765", new EtatEmploye(2, EmployeParser.empreinte("T98765,dupont,pierre,12/03/2003,1500,5,M87654")));
+        base.put("M12345", new EtatEmploye(3, 42L));
+        base.put("M00002", new EtatEmploye(4, null));
+        List<Employe> inseres = new ArrayList<>();
+        List<Employe> modifies = new ArrayList<>();
+        List<Long> supprimes = new ArrayList<>();
+        ReflectionTestUtils.setField(myRunner, "employeBatchWriter", new EmployeBatchWriter() {
+            @Override
+            public Map<String, EtatEmploye> chargerEtats() {
+                return base;
+            }
+
+            @Override
+            public void ecrire(List<Employe> nouveaux, List<Employe> aModifier) {
+                inseres.addAll(nouveaux);
+                modifies.addAll(aModifier);
+            }
+
+            @Override
+            public int supprimer(List<Long> ids) {
+                supprimes.addAll(ids);
+                return ids.size();
+            }
+        });
+        ReflectionTestUtils.setField(myRunner, "deltaActif", true);
+        ReflectionTestUtils.setField(myRunner, "supprimerAbsents", true);
+
+        //When
+        myRunner.run("employes.csv");
+
+        //Then
+        Assertions.assertThat(inseres).extracting(Employe::getMatricule).containsExactly("T98764", "C32154");
+        Assertions.assertThat(((Technicien) inseres.get(0)).getManager().getId()).isEqualTo(1L);
+        Assertions.assertThat(modifies).extracting(Employe::getMatricule).containsExactly("T98765");
+        Assertions.assertThat(modifies.get(0).getId()).isEqualTo(2L);
+        Assertions.assertThat(supprimes).containsExactly(4L);
+        Assertions.assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                .contains("import différentiel : 2 insérés, 1 mis à jour, 1 inchangés, 1 supprimés");
+    }
+}
@@ -0,0 +1,87 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ChampsCsvTest {
+
+    private final ChampsCsv champs = new ChampsCsv();
+
+    @Test
+    public void testDecouperCommeSplit() {
+        for (String ligne : new String[]{"M12345,durand,jacques,", "C12,aubert,,", ",,,", "a", "a,,b", ",a", " , "}) {
+            String[] attendus = ligne.split(",");
+            Assertions.assertThat(champs.decouper(ligne)).as(ligne).isEqualTo(attendus.length);
+            for (int i = 0; i < attendus.length; i++) {
+                Assertions.assertThat(champs.champ(i)).isEqualTo(attendus[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testLireDecimalCommeDoubleParseDouble() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            String nombre = (random.nextBoolean() ? "-" : "") + random.nextInt(10_000_000) + "." + random.nextInt(1_000_000);
+            champs.decouper(nombre);
+            Assertions.assertThat(champs.lireDecimal(0)).as(nombre).isEqualTo(Double.parseDouble(nombre));
+            Assertions.assertThat(champs.estValide()).as(nombre).isTrue();
+        }
+        for (String nombre : new String[]{"1200.5", "150000", "1.", ".5", "1e3", "12345678901234567890.5", " 7 "}) {
+            champs.decouper(nombre);
+            Assertions.assertThat(champs.lireDecimal(0)).as(nombre).isEqualTo(Double.parseDouble(nombre));
+            Assertions.assertThat(champs.estValide()).as(nombre).isTrue();
+        }
+    }
+
+    @Test
+    public void testLireErreurs() {
+        for (String invalide : new String[]{"sdf", "xxx", "-", "", "1.2.3"}) {
+            champs.decouper(invalide + ",0");
+            champs.lireDecimal(0);
+            Assertions.assertThat(champs.estValide()).as(invalide).isFalse();
+            champs.lireEntier(0);
+            Assertions.assertThat(champs.estValide()).as(invalide).isFalse();
+        }
+        for (String invalide : new String[]{"04/99/2013", "05/09/XX", "31/02/2013", "2013-06-04"}) {
+            champs.decouper(invalide);
+            Assertions.assertThat(champs.lireDate(0)).as(invalide).isNull();
+        }
+    }
+
+    @Test
+    public void testLireDateEtEntier() {
+        for (String date : new String[]{"04/06/2013", "4/6/2013", "29/02/2016"}) {
+            champs.decouper(date);
+            Assertions.assertThat(champs.lireDate(0)).isEqualTo(DateTimeFormat.forPattern("dd/MM/yyyy").parseLocalDate(date));
+        }
+        champs.decouper("5,+9,-120,2147483647");
+        Assertions.assertThat(champs.lireEntier(0)).isEqualTo(5);
+        Assertions.assertThat(champs.lireEntier(1)).isEqualTo(9);
+        Assertions.assertThat(champs.lireEntier(2)).isEqualTo(-120);
+        Assertions.assertThat(champs.lireEntier(3)).isEqualTo(Integer.MAX_VALUE);
+        Assertions.assertThat(champs.estValide()).isTrue();
+    }
+
+    @Test
+    public void testLireSansException() {
+        champs.decouper("sdf,1.2.3,99999999999,04/99/2013,05/09/XX,12,1500.5,12/03/2003");
+        champs.lireEntier(0);
+        Assertions.assertThat(champs.estValide()).isFalse();
+        champs.lireDecimal(1);
+        Assertions.assertThat(champs.estValide()).isFalse();
+        champs.lireEntier(2);
+        Assertions.assertThat(champs.estValide()).isFalse();
+        Assertions.assertThat(champs.lireDate(3)).isNull();
+        Assertions.assertThat(champs.lireDate(4)).isNull();
+        Assertions.assertThat(champs.lireEntier(5)).isEqualTo(12);
+        Assertions.assertThat(champs.estValide()).isTrue();
+        Assertions.assertThat(champs.lireDecimal(6)).isEqualTo(1500.5);
+        Assertions.assertThat(champs.estValide()).isTrue();
+        Assertions.assertThat(champs.lireDate(7)).isEqualTo(new LocalDate(2003, 3, 12));
+    }
+}
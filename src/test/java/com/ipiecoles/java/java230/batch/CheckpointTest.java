@@ -0,0 +1,60 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+public class CheckpointTest {
+
+    @Rule
+    public TemporaryFolder repertoire = new TemporaryFolder();
+
+    private Path fichier(String nom, byte[] contenu) throws Exception {
+        Path fichier = repertoire.getRoot().toPath().resolve(nom);
+        Files.write(fichier, contenu);
+        return fichier;
+    }
+
+    @Test
+    public void testEmpreinteModificationApresLeDebut() throws Exception {
+        //Given
+        byte[] contenu = new byte[200 * 1024];
+        for (int i = 0; i < contenu.length; i++) {
+            contenu[i] = (byte) ('0' + i % 10);
+        }
+        Path original = fichier("original.csv", contenu);
+        //Même taille, un seul octet modifié loin après les 64 premiers Ko
+        contenu[150 * 1024] = 'X';
+        Path corrige = fichier("corrige.csv", contenu);
+
+        //When
+        String empreinte = Checkpoint.empreinte(original);
+
+        //Then
+        Assertions.assertThat(empreinte).isEqualTo(Checkpoint.empreinte(original));
+        Assertions.assertThat(empreinte).startsWith(contenu.length + "-");
+        Assertions.assertThat(Checkpoint.empreinte(corrige)).isNotEqualTo(empreinte);
+    }
+
+    @Test
+    public void testEcrireLire() throws Exception {
+        //Given
+        Path fichier = repertoire.getRoot().toPath().resolve("checkpoints").resolve("employes.csv.checkpoint");
+        LigneEmploye technicien = new LigneEmploye(3, "T12345,dupont,pierre,12/03/2003,1700.5,5,M99999");
+
+        //When
+        new Checkpoint("42-abc", 10, 512, Collections.singletonList(technicien)).ecrire(fichier);
+        Checkpoint checkpoint = Checkpoint.lire(fichier);
+
+        //Then
+        Assertions.assertThat(checkpoint.getEmpreinte()).isEqualTo("42-abc");
+        Assertions.assertThat(checkpoint.getNumLigne()).isEqualTo(10);
+        Assertions.assertThat(checkpoint.getPosition()).isEqualTo(512);
+        Assertions.assertThat(checkpoint.getLignesEnAttente()).extracting(LigneEmploye::getLigne).containsExactly(technicien.getLigne());
+    }
+}
@@ -0,0 +1,85 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.TechnicienRepository;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+/**
+ * Écriture des lots de l'import différentiel sur une base H2 en mémoire.
+ * Les tests ne sont pas transactionnels : chaque lot est écrit dans sa propre transaction comme pendant l'import.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(EmployeBatchWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class EmployeBatchWriterTest {
+
+    @Autowired
+    private EmployeBatchWriter employeBatchWriter;
+
+    @Autowired
+    private TechnicienRepository technicienRepository;
+
+    private Technicien technicien;
+
+    @Before
+    public void setUp() throws Exception {
+        Manager manager = manager("M11111");
+        technicien = technicien(manager, 1700.5);
+        employeBatchWriter.ecrire(Arrays.asList(manager, technicien));
+    }
+
+    @After
+    public void tearDown() {
+        employeBatchWriter.supprimer(employeBatchWriter.chargerEtats().values().stream()
+                .map(EtatEmploye::getId).collect(Collectors.toList()));
+    }
+
+    private static Manager manager(String matricule) {
+        return new Manager("dupont", "jacques", matricule, new LocalDate(2013, 6, 4), 1200.5, new HashSet<>());
+    }
+
+    private static Technicien technicien(Manager manager, Double salaire) throws Exception {
+        Technicien technicien = new Technicien("dupont", "pierre", "T22222", new LocalDate(2003, 3, 12), salaire, 5);
+        technicien.setManager(manager);
+        return technicien;
+    }
+
+    @Test
+    public void testEcrireTechnicienModifieAvecNouveauManager() throws Exception {
+        //Given
+        Manager nouveauManager = manager("M33333");
+        Technicien modifie = technicien(nouveauManager, 1800.5);
+        modifie.setId(technicien.getId());
+
+        //When
+        employeBatchWriter.ecrire(Collections.<Employe>singletonList(nouveauManager), Collections.<Employe>singletonList(modifie));
+
+        //Then
+        Technicien enBase = technicienRepository.findOne(technicien.getId());
+        Assertions.assertThat(enBase.getSalaire()).isEqualTo(modifie.getSalaire());
+        Assertions.assertThat(enBase.getManager().getId()).isEqualTo(nouveauManager.getId());
+        Assertions.assertThat(enBase.getManager().getMatricule()).isEqualTo("M33333");
+    }
+}
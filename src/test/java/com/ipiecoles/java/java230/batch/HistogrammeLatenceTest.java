@@ -0,0 +1,44 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class HistogrammeLatenceTest {
+
+    @Test
+    public void testQuantiles() {
+        //Given
+        HistogrammeLatence histogramme = new HistogrammeLatence();
+
+        //When
+        for (int i = 1; i <= 100; i++) {
+            histogramme.enregistrer(i * 1000L);
+        }
+
+        //Then
+        Assertions.assertThat(histogramme.getNombre()).isEqualTo(100);
+        Assertions.assertThat(histogramme.getMax()).isEqualTo(100_000);
+        Assertions.assertThat(histogramme.moyenne()).isEqualTo(50_500.0);
+        //Chaque quantile est majoré au plus d'un facteur 2
+        Assertions.assertThat(histogramme.quantile(0.5)).isBetween(50_000L, 100_000L);
+        Assertions.assertThat(histogramme.quantile(0.99)).isBetween(99_000L, 100_000L);
+        Assertions.assertThat(histogramme.quantile(0)).isBetween(1000L, 2000L);
+    }
+
+    @Test
+    public void testVideEtAjouter() {
+        //Given
+        HistogrammeLatence histogramme = new HistogrammeLatence();
+        HistogrammeLatence autre = new HistogrammeLatence();
+        autre.enregistrer(-5);
+        autre.enregistrer(300);
+
+        //When/Then
+        Assertions.assertThat(histogramme.quantile(0.5)).isEqualTo(0);
+        Assertions.assertThat(histogramme.moyenne()).isEqualTo(0);
+        histogramme.ajouter(autre);
+        Assertions.assertThat(histogramme.getNombre()).isEqualTo(2);
+        Assertions.assertThat(histogramme.getTotal()).isEqualTo(300);
+        Assertions.assertThat(histogramme.quantile(1)).isEqualTo(300);
+    }
+}
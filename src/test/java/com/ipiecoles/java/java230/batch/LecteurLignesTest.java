@@ -0,0 +1,102 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LecteurLignesTest {
+
+    @Rule
+    public TemporaryFolder repertoire = new TemporaryFolder();
+
+    private Path fichier(String contenu) throws Exception {
+        Path fichier = repertoire.newFile().toPath();
+        Files.write(fichier, contenu.getBytes(StandardCharsets.UTF_8));
+        return fichier;
+    }
+
+    @Test
+    public void testLireLignePositions() throws Exception {
+        //Given
+        Path fichier = fichier("M87654,durand,jérôme\r\n\nC32154,aubert");
+
+        try (LecteurLignes lecteur = new LecteurLignes(fichier, 0)) {
+            //When / Then
+            Assertions.assertThat(lecteur.lireLigne()).isEqualTo("M87654,durand,jérôme");
+            Assertions.assertThat(lecteur.getPosition()).isEqualTo(24);
+            Assertions.assertThat(lecteur.lireLigne()).isEqualTo("");
+            Assertions.assertThat(lecteur.getPosition()).isEqualTo(25);
+            Assertions.assertThat(lecteur.lireLigne()).isEqualTo("C32154,aubert");
+            Assertions.assertThat(lecteur.getPosition()).isEqualTo(38);
+            Assertions.assertThat(lecteur.lireLigne()).isNull();
+        }
+    }
+
+    @Test
+    public void testLireLigneDepuisPosition() throws Exception {
+        //Given
+        Path fichier = fichier("M87654,durand,jacques\nT98765,dupont,pierre\n");
+
+        try (LecteurLignes lecteur = new LecteurLignes(fichier, 22)) {
+            //When / Then
+            Assertions.assertThat(lecteur.lireLigne()).isEqualTo("T98765,dupont,pierre");
+            Assertions.assertThat(lecteur.lireLigne()).isNull();
+        }
+    }
+
+    @Test
+    public void testLireLigneAChevalSurPlusieursRegions() throws Exception {
+        //Given
+        Path fichier = fichier("M87654,durand,jérôme\r\nT98765,dupont,pierre\n\nC32154,aubert");
+
+        //When
+        List<String> lignes = new ArrayList<>();
+        try (LecteurLignes lecteur = new LecteurLignes(FileChannel.open(fichier), true, 0, Long.MAX_VALUE, 5)) {
+            String ligne;
+            while ((ligne = lecteur.lireLigne()) != null) {
+                lignes.add(ligne);
+            }
+        }
+
+        //Then
+        Assertions.assertThat(lignes).containsExactly("M87654,durand,jérôme", "T98765,dupont,pierre", "", "C32154,aubert");
+    }
+
+    @Test
+    public void testPasserLigneEtPlage() throws Exception {
+        //Given
+        Path fichier = fichier("M87654,durand,jacques\nT98765,dupont,pierre\nC32154,aubert\n");
+
+        try (LecteurLignes lecteur = new LecteurLignes(fichier, 0, 43)) {
+            //When / Then
+            Assertions.assertThat(lecteur.passerLigne()).isTrue();
+            Assertions.assertThat(lecteur.getPosition()).isEqualTo(22);
+            Assertions.assertThat(lecteur.lireLigne()).isEqualTo("T98765,dupont,pierre");
+            Assertions.assertThat(lecteur.passerLigne()).isFalse();
+            Assertions.assertThat(lecteur.lireLigne()).isNull();
+        }
+    }
+
+    @Test
+    public void testLecteurFluxDepuisPosition() throws Exception {
+        //Given
+        byte[] contenu = "M87654,durand,jacques\r\nT98765,dupont,pierre\nC32154,aubert".getBytes(StandardCharsets.UTF_8);
+
+        try (LecteurFlux lecteur = new LecteurFlux(new ByteArrayInputStream(contenu), 23)) {
+            //When / Then
+            Assertions.assertThat(lecteur.lireLigne()).isEqualTo("T98765,dupont,pierre");
+            Assertions.assertThat(lecteur.getPosition()).isEqualTo(44);
+            Assertions.assertThat(lecteur.passerLigne()).isTrue();
+            Assertions.assertThat(lecteur.lireLigne()).isNull();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class MatriculesLusTest {
+
+    @Test
+    public void testCoder() {
+        Assertions.assertThat(MatriculesLus.coder("M00000")).isEqualTo(0);
+        Assertions.assertThat(MatriculesLus.coder("M99999")).isEqualTo(99999);
+        Assertions.assertThat(MatriculesLus.coder("T00001")).isEqualTo(100001);
+        Assertions.assertThat(MatriculesLus.coder("C99999")).isEqualTo(299999);
+        Assertions.assertThat(MatriculesLus.coder("X12345")).isEqualTo(-1);
+        Assertions.assertThat(MatriculesLus.coder("M1234")).isEqualTo(-1);
+    }
+
+    @Test
+    public void testAjouter() {
+        //Given
+        MatriculesLus matricules = new MatriculesLus();
+
+        //When/Then
+        Assertions.assertThat(matricules.ajouter("M12345")).isTrue();
+        Assertions.assertThat(matricules.ajouter("T12345")).isTrue();
+        Assertions.assertThat(matricules.ajouter("C99999")).isTrue();
+        Assertions.assertThat(matricules.ajouter("M12345")).isFalse();
+        Assertions.assertThat(matricules.ajouter("T12345")).isFalse();
+        Assertions.assertThat(matricules.ajouter("C12345")).isTrue();
+
+        matricules.vider();
+        Assertions.assertThat(matricules.ajouter("M12345")).isTrue();
+        Assertions.assertThat(matricules.ajouter("T12345")).isTrue();
+    }
+
+    @Test
+    public void testAjouterMatriculeInvalide() {
+        Assertions.assertThatThrownBy(() -> new MatriculesLus().ajouter("X12345"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+public class ParseurDateTest {
+
+    @Test
+    public void testParseCommeJoda() {
+        for (String date : new String[]{"04/06/2013", "4/6/2013", "29/02/2016", "31/12/1999", "01/01/0001"}) {
+            Assertions.assertThat(ParseurDate.parse(date)).as(date).isEqualTo(DateTimeFormat.forPattern("dd/MM/yyyy").parseLocalDate(date));
+        }
+    }
+
+    @Test
+    public void testParseMemeDateDepuisLeCache() {
+        LocalDate date = ParseurDate.parse("12/03/2003");
+        Assertions.assertThat(ParseurDate.parse("T12345,12/03/2003,1500", 7, 17)).isSameAs(date);
+    }
+
+    @Test
+    public void testParseDateInvalide() {
+        for (String date : new String[]{"04/99/2013", "05/09/XX", "29/02/2015", "2013-06-04", ""}) {
+            Assertions.assertThatThrownBy(() -> ParseurDate.parse(date)).as(date).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    public void testParseConcurrent() {
+        //Les dates se disputent les mêmes cases du cache depuis plusieurs threads
+        IntStream.range(0, 200_000).parallel().forEach(i -> {
+            LocalDate attendue = new LocalDate(2000 + i % 20, 1 + i % 12, 1 + i % 28);
+            String date = String.format("%02d/%02d/%04d", attendue.getDayOfMonth(), attendue.getMonthOfYear(), attendue.getYear());
+            Assertions.assertThat(ParseurDate.parse(date)).isEqualTo(attendue);
+        });
+    }
+}
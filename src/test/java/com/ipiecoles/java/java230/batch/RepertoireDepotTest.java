@@ -0,0 +1,117 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RepertoireDepotTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    private final List<String> importes = new CopyOnWriteArrayList<>();
+
+    private boolean importer(Path fichier) {
+        importes.add(fichier.getFileName().toString());
+        if (fichier.getFileName().toString().startsWith("exception")) {
+            throw new IllegalStateException("erreur");
+        }
+        return !fichier.getFileName().toString().startsWith("echec");
+    }
+
+    private static List<String> contenu(Path repertoire) throws Exception {
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            return fichiers.map(f -> f.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void deposer(Path repertoire, String nom) throws Exception {
+        Path temporaire = repertoire.resolve(nom + ".tmp");
+        Files.write(temporaire, Collections.singletonList("M12345,durand,jacques,04/06/2013,1200.5"));
+        Files.move(temporaire, repertoire.resolve(nom), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void attendre(Path repertoire, int nbFichiers) throws Exception {
+        long limite = System.currentTimeMillis() + 10000;
+        while (contenu(repertoire).size() < nbFichiers && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void testSurveiller() throws Exception {
+        //Given
+        Path depot = dossier.newFolder("depot").toPath();
+        Path traites = dossier.getRoot().toPath().resolve("traites");
+        Path echecs = dossier.getRoot().toPath().resolve("echecs");
+        deposer(depot, "present.csv");
+        Files.write(depot.resolve("encours.csv.tmp"), Collections.singletonList(""));
+
+        try (RepertoireDepot repertoireDepot = new RepertoireDepot(depot, traites, echecs, 2, this::importer)) {
+            Thread surveillance = new Thread(() -> {
+                try {
+                    repertoireDepot.surveiller();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            surveillance.start();
+
+            //When
+            attendre(traites, 1);
+            deposer(depot, "ok.csv");
+            deposer(depot, "echec.csv");
+            deposer(depot, "exception.csv");
+            attendre(traites, 2);
+            attendre(echecs, 2);
+            surveillance.interrupt();
+            surveillance.join(10000);
+
+            //Then
+            Assertions.assertThat(surveillance.isAlive()).isFalse();
+        }
+        Assertions.assertThat(importes).containsExactlyInAnyOrder("present.csv", "ok.csv", "echec.csv", "exception.csv");
+        Assertions.assertThat(contenu(traites)).containsExactly("ok.csv", "present.csv");
+        Assertions.assertThat(contenu(echecs)).containsExactly("echec.csv", "exception.csv");
+        Assertions.assertThat(contenu(depot)).containsExactly("encours.csv.tmp");
+    }
+
+    @Test
+    public void testFichierDejaTraite() throws Exception {
+        //Given
+        Path depot = dossier.newFolder("depot").toPath();
+        Path traites = dossier.newFolder("traites").toPath();
+        Files.write(traites.resolve("ok.csv"), Collections.singletonList("import précédent"));
+        deposer(depot, "ok.csv");
+
+        try (RepertoireDepot repertoireDepot = new RepertoireDepot(depot, traites, dossier.getRoot().toPath().resolve("echecs"), 1, this::importer)) {
+            Thread surveillance = new Thread(() -> {
+                try {
+                    repertoireDepot.surveiller();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            surveillance.start();
+
+            //When
+            attendre(traites, 2);
+            surveillance.interrupt();
+            surveillance.join(10000);
+        }
+
+        //Then
+        Assertions.assertThat(contenu(traites)).hasSize(2).contains("ok.csv");
+        Assertions.assertThat(Files.readAllLines(traites.resolve("ok.csv"))).containsExactly("import précédent");
+    }
+}
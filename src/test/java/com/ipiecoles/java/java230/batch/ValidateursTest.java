@@ -0,0 +1,20 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class ValidateursTest {
+
+    private static final String[] VALEURS = {"M12345", "T00000", "C99999", "X12345", "m12345", "M1234", "M123456",
+            "M1234X", "M12345\n", "M١٢٣٤٥", "", "durand", "jean-pierre", "ma rie", "Éloïse", "dur4nd", "o'neil", " "};
+
+    @Test
+    public void testValidateursCommeExpressionsRegulieres() {
+        for (String valeur : VALEURS) {
+            Assertions.assertThat(Validateurs.matricule(valeur)).as(valeur).isEqualTo(valeur.matches(EmployeParser.REGEX_MATRICULE));
+            Assertions.assertThat(Validateurs.matriculeManager(valeur)).as(valeur).isEqualTo(valeur.matches(EmployeParser.REGEX_MATRICULE_MANAGER));
+            Assertions.assertThat(Validateurs.nom(valeur)).as(valeur).isEqualTo(valeur.matches(EmployeParser.REGEX_NOM));
+            Assertions.assertThat(Validateurs.prenom(valeur)).as(valeur).isEqualTo(valeur.matches(EmployeParser.REGEX_PRENOM));
+        }
+    }
+}
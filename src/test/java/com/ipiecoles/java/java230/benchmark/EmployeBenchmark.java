@@ -0,0 +1,102 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût des calculs du modèle : prime annuelle de chaque type d'employé, hashCode (Objects.hash, qui alloue un
+ * tableau et boxe ses arguments), tri de l'équipe d'un manager par grade et salaire des techniciens de grade 1,
+ * selon la taille de l'équipe.
+ * Le profileur GC donne les octets alloués par opération (gc.alloc.rate.norm).
+ * A lancer après un mvn test-compile, avec le classpath de test, ou par mvn -P benchmark test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmployeBenchmark {
+
+    @Param({"5", "20", "100"})
+    public int tailleEquipe;
+
+    private Manager manager;
+
+    private Technicien technicien;
+
+    private Commercial commercial;
+
+    @Setup
+    public void setup() throws TechnicienException {
+        Random random = new Random(42);
+        manager = new Manager("durand", "jacques", "M12345", new LocalDate(2013, 6, 4), 1200.5, new HashSet<>());
+        for (int i = 0; i < tailleEquipe; i++) {
+            manager.ajoutTechnicienEquipe("dupont", "pierre", String.format("T%05d", i), new LocalDate(2003, 3, 12),
+                    1700.5 + i, 1 + random.nextInt(5));
+        }
+        technicien = new Technicien("dupont", "pierre", "T12345", new LocalDate(2003, 3, 12), 1700.5, 3);
+        commercial = new Commercial("aubert", "michel", "C12345", new LocalDate(2018, 9, 5), 2200.5, 150000d, 100);
+    }
+
+    @Benchmark
+    public Double primeManager() {
+        return manager.getPrimeAnnuelle();
+    }
+
+    @Benchmark
+    public Double primeTechnicien() {
+        return technicien.getPrimeAnnuelle();
+    }
+
+    @Benchmark
+    public Double primeCommercial() {
+        return commercial.getPrimeAnnuelle();
+    }
+
+    @Benchmark
+    public int hashCodeTechnicien() {
+        return technicien.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeCommercial() {
+        return commercial.hashCode();
+    }
+
+    @Benchmark
+    public List<Technicien> equipeParGrade() {
+        return manager.equipeParGrade();
+    }
+
+    @Benchmark
+    public double salaireEquipeGrade1() {
+        return manager.salaireEquipeGrade1();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EmployeBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
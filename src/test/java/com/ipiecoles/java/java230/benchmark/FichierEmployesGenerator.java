@@ -0,0 +1,125 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Génère des fichiers CSV d'employés synthétiques et déterministes pour les benchmarks : deux fichiers générés avec
+ * les mêmes paramètres sont identiques.
+ * Chaque manager est suivi de son équipe de {@link #tailleEquipe(int)} employés, techniciens et commerciaux répartis
+ * selon {@link #partTechniciens(double)}. Une part {@link #tauxErreurs(double)} des lignes est rendue invalide
+ * (type inconnu, date, salaire ou nombre de champs incorrects).
+ * Les matricules sont numérotés par type : au-delà de 100 000 employés d'un même type, les matricules se répètent
+ * et les lignes correspondantes sont rejetées comme doublons par l'import.
+ */
+public class FichierEmployesGenerator {
+
+    private static final int NB_MATRICULES = 100000;
+
+    private int tailleEquipe = 20;
+
+    private double partTechniciens = 0.5;
+
+    private double tauxErreurs = 0;
+
+    private long graine = 42;
+
+    public FichierEmployesGenerator tailleEquipe(int tailleEquipe) {
+        this.tailleEquipe = tailleEquipe;
+        return this;
+    }
+
+    /**
+     * @param partTechniciens la part de techniciens dans une équipe, entre 0 et 1, le reste étant des commerciaux
+     * @return ce générateur
+     */
+    public FichierEmployesGenerator partTechniciens(double partTechniciens) {
+        this.partTechniciens = partTechniciens;
+        return this;
+    }
+
+    /**
+     * @param tauxErreurs la part des lignes invalides, entre 0 et 1
+     * @return ce générateur
+     */
+    public FichierEmployesGenerator tauxErreurs(double tauxErreurs) {
+        this.tauxErreurs = tauxErreurs;
+        return this;
+    }
+
+    /**
+     * @param graine la graine du tirage des types et des erreurs
+     * @return ce générateur
+     */
+    public FichierEmployesGenerator graine(long graine) {
+        this.graine = graine;
+        return this;
+    }
+
+    /**
+     * Méthode qui écrit un fichier de nbLignes employés
+     * @param fichier le fichier à créer ou remplacer
+     * @param nbLignes le nombre de lignes à générer
+     * @return le fichier généré
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public Path generer(Path fichier, long nbLignes) throws IOException {
+        Files.createDirectories(fichier.toAbsolutePath().getParent());
+        Random random = new Random(graine);
+        long nbManagers = 0;
+        long nbTechniciens = 0;
+        long nbCommerciaux = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            String matriculeManager = null;
+            for (long i = 0; i < nbLignes; i++) {
+                String ligne;
+                if (i % (tailleEquipe + 1) == 0) {
+                    matriculeManager = matricule('M', nbManagers++);
+                    ligne = matriculeManager + ",durand,jacques,04/06/2013,1200.5";
+                } else if (random.nextDouble() < partTechniciens) {
+                    ligne = matricule('T', nbTechniciens) + ",dupont,pierre,12/03/2003,1700.5," + (1 + nbTechniciens % 5) + "," + matriculeManager;
+                    nbTechniciens++;
+                } else {
+                    ligne = matricule('C', nbCommerciaux++) + ",aubert,michel,05/09/2018,2200.5,150000.0,100";
+                }
+                if (tauxErreurs > 0 && random.nextDouble() < tauxErreurs) {
+                    ligne = corrompre(ligne, random.nextInt(4));
+                }
+                writer.write(ligne);
+                writer.newLine();
+            }
+        }
+        return fichier;
+    }
+
+    /**
+     * Méthode qui rend une ligne invalide
+     * @param ligne une ligne valide
+     * @param erreur le type d'erreur, de 0 à 3
+     * @return la ligne invalide
+     */
+    private static String corrompre(String ligne, int erreur) {
+        String[] champs = ligne.split(",");
+        switch (erreur) {
+            case 0:
+                return "X" + ligne.substring(1);
+            case 1:
+                champs[3] = "31/13/2013";
+                break;
+            case 2:
+                champs[4] = "12OO.5";
+                break;
+            default:
+                return ligne.substring(0, ligne.lastIndexOf(','));
+        }
+        return String.join(",", champs);
+    }
+
+    private static String matricule(char type, long numero) {
+        return type + String.format("%05d", numero % NB_MATRICULES);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.Application;
+import com.ipiecoles.java.java230.batch.EmployeBatchWriter;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.EmployeIdGenerator;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.joda.time.LocalDate;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mesure le nombre d'insertions par seconde de {@link EmployeBatchWriter} selon le paramétrage de {@link EmployeIdGenerator}.
+ * "none/1" correspond à une table d'identifiants lue à chaque insertion (ancien comportement de GenerationType.AUTO
+ * avec les nouveaux générateurs), les autres réservent les identifiants par blocs.
+ * Pour mesurer GenerationType.IDENTITY, lancer ce benchmark sur la version précédente d'Employe.
+ * Attention : les employés sont insérés dans la base configurée dans application.properties, puis supprimés.
+ * Arguments : nombre d'employés à insérer (100 000 par défaut).
+ */
+public class IdGenerationBenchmark {
+
+    private static final String[][] PARAMETRAGES = {{"none", "1"}, {"pooled-lo", "50"}, {"pooled-lo", "1000"}, {"hilo", "1000"}};
+
+    private static final int TAILLE_TRANSACTION = 1000;
+
+    public static void main(String[] args) {
+        int nbEmployes = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        System.out.println("optimiseur;taille_allocation;insertions_par_seconde");
+        for (String[] parametrage : PARAMETRAGES) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class).run(
+                    "--batch.import-au-demarrage=false",
+                    "--spring.jpa.properties." + EmployeIdGenerator.OPTIMISEUR + "=" + parametrage[0],
+                    "--spring.jpa.properties." + EmployeIdGenerator.TAILLE_ALLOCATION + "=" + parametrage[1])) {
+                EmployeBatchWriter writer = context.getBean(EmployeBatchWriter.class);
+                EmployeRepository employeRepository = context.getBean(EmployeRepository.class);
+
+                long debut = System.nanoTime();
+                for (int i = 0; i < nbEmployes; i += TAILLE_TRANSACTION) {
+                    List<Employe> employes = new ArrayList<>(TAILLE_TRANSACTION);
+                    for (int j = i; j < Math.min(i + TAILLE_TRANSACTION, nbEmployes); j++) {
+                        employes.add(new Commercial("benchmark", "id", String.format("C%05d", j % 100000), new LocalDate(2018, 9, 5), 2200.5, 150000d, 100));
+                    }
+                    writer.ecrire(employes);
+                }
+                long duree = System.nanoTime() - debut;
+                System.out.println(parametrage[0] + ";" + parametrage[1] + ";" + (long) (nbEmployes / (duree / 1e9)));
+
+                employeRepository.delete(employeRepository.findByNomAndPrenom("benchmark", "id"));
+            }
+        }
+    }
+}
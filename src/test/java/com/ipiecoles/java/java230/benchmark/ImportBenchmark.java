@@ -0,0 +1,122 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.Application;
+import com.ipiecoles.java.java230.MyRunner;
+import com.ipiecoles.java.java230.batch.MetriquesBatch;
+import com.ipiecoles.java.java230.batch.MetriquesImport;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Mesure l'import complet de {@link MyRunner} (lecture, analyse, rattachement, enregistrement) sur des fichiers
+ * synthétiques de plusieurs tailles, avec une base H2 en mémoire en mode MySQL à la place de MySQL : les durées
+ * d'écriture sont donc plus courtes qu'en production, mais comparables d'une version à l'autre.
+ * Chaque taille est importée une fois pour chauffer la JVM, puis iterations fois ; la base est vidée avant chaque import.
+ * Les résultats sont affichés et ajoutés au fichier CSV resultats (séparateur ";"), pour comparer les versions.
+ * Arguments, sous la forme cle=valeur :
+ * tailles (nombres de lignes séparés par des virgules, 10000,100000,250000 par défaut), erreurs (part des lignes
+ * invalides, 0.01 par défaut), techniciens (part de techniciens dans les équipes, 0.5 par défaut), equipe (taille des
+ * équipes, 20 par défaut), iterations (3 par défaut), version (libellé de la version mesurée, le commit par exemple),
+ * resultats (target/benchmark/import.csv par défaut).
+ * Au-delà de 300 000 lignes, les matricules générés se répètent et les doublons sont rejetés.
+ * Lancer avec une taille de tas fixe (-Xms1g -Xmx1g par exemple) pour des pics de tas comparables.
+ */
+public class ImportBenchmark {
+
+    private static final String ENTETE = "date;version;lignes;taux_erreurs;part_techniciens;taille_equipe;iteration;"
+            + "duree_ms;lignes_par_s;octets_par_s;employes;rejets;allocation_mo_par_s;octets_alloues_par_ligne;tas_max_mo";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parametres = new HashMap<>();
+        for (String arg : args) {
+            String[] cleValeur = arg.split("=", 2);
+            parametres.put(cleValeur[0], cleValeur.length > 1 ? cleValeur[1] : "");
+        }
+        String[] tailles = parametres.getOrDefault("tailles", "10000,100000,250000").split(",");
+        double tauxErreurs = Double.parseDouble(parametres.getOrDefault("erreurs", "0.01"));
+        double partTechniciens = Double.parseDouble(parametres.getOrDefault("techniciens", "0.5"));
+        int tailleEquipe = Integer.parseInt(parametres.getOrDefault("equipe", "20"));
+        int iterations = Integer.parseInt(parametres.getOrDefault("iterations", "3"));
+        String version = parametres.getOrDefault("version", "");
+        Path resultats = Paths.get(parametres.getOrDefault("resultats", "target/benchmark/import.csv"));
+
+        FichierEmployesGenerator generator = new FichierEmployesGenerator().tailleEquipe(tailleEquipe)
+                .partTechniciens(partTechniciens).tauxErreurs(tauxErreurs);
+        Files.createDirectories(resultats.toAbsolutePath().getParent());
+        boolean nouveauFichier = !Files.exists(resultats);
+        String date = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--batch.import-au-demarrage=false",
+                "--batch.reprise.active=false",
+                "--batch.rejets.actif=false",
+                "--batch.rejets.journaliser=false",
+                "--batch.budget-erreurs.max=-1",
+                "--batch.budget-erreurs.pourcentage=-1");
+             BufferedWriter writer = Files.newBufferedWriter(resultats, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            MetriquesBatch metriquesBatch = context.getBean(MetriquesBatch.class);
+            if (nouveauFichier) {
+                writer.write(ENTETE);
+                writer.newLine();
+            }
+            System.out.println(ENTETE);
+            for (String taille : tailles) {
+                long nbLignes = Long.parseLong(taille.trim());
+                Path fichier = generator.generer(Paths.get("target/benchmark/employes-" + nbLignes + ".csv"), nbLignes);
+                for (int iteration = 0; iteration <= iterations; iteration++) {
+                    vider(jdbcTemplate);
+                    System.gc();
+                    long alloues;
+                    try (MesureAllocations allocations = new MesureAllocations()) {
+                        context.getBean(MyRunner.class).importer(fichier.toString());
+                        alloues = allocations.getAlloues();
+                    }
+                    //L'itération 0 ne sert qu'à chauffer la JVM
+                    if (iteration == 0) {
+                        continue;
+                    }
+                    MetriquesImport metriques = metriquesBatch.getDernierImport();
+                    double secondes = metriques.getDuree() / 1e9;
+                    String resultat = String.format(Locale.ROOT, "%s;%s;%d;%s;%s;%d;%d;%d;%.0f;%.0f;%d;%d;%.1f;%.0f;%d",
+                            date, version, nbLignes, tauxErreurs, partTechniciens, tailleEquipe, iteration,
+                            metriques.getDuree() / 1_000_000, metriques.lignesParSeconde(), metriques.octetsParSeconde(),
+                            metriques.getEmployes(), metriques.getNbRejets(), alloues / secondes / (1024 * 1024),
+                            (double) alloues / Math.max(metriques.getLignes(), 1), metriques.getPicTas() / (1024 * 1024));
+                    System.out.println(resultat);
+                    writer.write(resultat);
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Méthode qui supprime les employés de la base, les techniciens en premier à cause de la clé vers leur manager
+     * @param jdbcTemplate l'accès à la base
+     */
+    private static void vider(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("delete from Technicien");
+        jdbcTemplate.update("delete from Commercial");
+        jdbcTemplate.update("delete from Manager");
+        jdbcTemplate.update("delete from Employe");
+    }
+}
@@ -0,0 +1,99 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.MyRunner;
+import com.ipiecoles.java.java230.batch.EmployeParser;
+import com.ipiecoles.java.java230.batch.LigneEmploye;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compare le rattachement des techniciens à leur manager par parcours de la liste des employés (ancienne implémentation)
+ * et par index des matricules (implémentation de MyRunner), sur des fichiers de 10 000, 100 000 et 1 000 000 lignes.
+ * Le parcours de liste étant quadratique, il n'est mesuré au-delà de 100 000 lignes qu'avec l'argument "complet".
+ * A lancer après un mvn test-compile, avec le classpath de test.
+ */
+public class ManagerIndexBenchmark {
+
+    private static final long[] TAILLES = {10_000, 100_000, 1_000_000};
+
+    private static final long LIMITE_PARCOURS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        boolean complet = args.length > 0 && "complet".equals(args[0]);
+        Path repertoire = Paths.get(ManagerIndexBenchmark.class.getResource("/").toURI()).resolve("benchmark");
+        EmployeParser parser = new EmployeParser();
+        System.out.println("lignes;parcours_ms;index_ms;readFile_ms");
+        for (long taille : TAILLES) {
+            Path fichier = new FichierEmployesGenerator().generer(repertoire.resolve("employes-" + taille + ".csv"), taille);
+            List<LigneEmploye> lignes = new ArrayList<>();
+            long numero = 0;
+            for (String ligne : Files.readAllLines(fichier)) {
+                lignes.add(parser.parse(++numero, ligne));
+            }
+
+            String parcours = "-";
+            if (complet || taille <= LIMITE_PARCOURS) {
+                long debut = System.nanoTime();
+                rattacherParParcours(lignes);
+                parcours = String.valueOf((System.nanoTime() - debut) / 1_000_000);
+            }
+            long debut = System.nanoTime();
+            rattacherParIndex(lignes);
+            long index = (System.nanoTime() - debut) / 1_000_000;
+
+            debut = System.nanoTime();
+            MyRunner myRunner = new MyRunner();
+            ReflectionTestUtils.setField(myRunner, "managersEnBase", false);
+            myRunner.readFile("benchmark/" + fichier.getFileName(), employes -> { });
+            long readFile = (System.nanoTime() - debut) / 1_000_000;
+
+            System.out.println(taille + ";" + parcours + ";" + index + ";" + readFile);
+        }
+    }
+
+    private static int rattacherParParcours(List<LigneEmploye> lignes) {
+        List<Employe> employes = new ArrayList<>();
+        int rattaches = 0;
+        for (LigneEmploye ligne : lignes) {
+            if (ligne.getMatriculeManager() != null) {
+                Manager manager = null;
+                for (int i = 0; i < employes.size(); i++) {
+                    if (employes.get(i) instanceof Manager && employes.get(i).getMatricule().equals(ligne.getMatriculeManager())) {
+                        manager = (Manager) employes.get(i);
+                    }
+                }
+                if (manager != null) {
+                    rattaches++;
+                }
+            }
+            if (ligne.getEmploye() != null) {
+                employes.add(ligne.getEmploye());
+            }
+        }
+        return rattaches;
+    }
+
+    private static int rattacherParIndex(List<LigneEmploye> lignes) {
+        Map<String, Manager> managers = new HashMap<>();
+        int rattaches = 0;
+        for (LigneEmploye ligne : lignes) {
+            if (ligne.getMatriculeManager() != null && managers.get(ligne.getMatriculeManager()) != null) {
+                rattaches++;
+            }
+            if (ligne.getEmploye() instanceof Manager) {
+                managers.put(ligne.getEmploye().getMatricule(), (Manager) ligne.getEmploye());
+            }
+        }
+        return rattaches;
+    }
+}
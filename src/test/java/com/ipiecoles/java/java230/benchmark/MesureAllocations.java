@@ -0,0 +1,73 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+/**
+ * Mesure approchée des octets alloués par toute la JVM, threads terminés compris : les threads du pipeline d'import
+ * sont arrêtés à la fin de chaque import, ce qui empêche de relever leurs allocations par ThreadMXBean.
+ * Les allocations se font dans l'eden, qui est vidé par chaque GC : les octets alloués sont la somme de ce que l'eden
+ * a gagné entre deux GC. Les gros objets alloués directement dans la vieille génération ne sont pas comptés.
+ */
+public class MesureAllocations implements NotificationListener, AutoCloseable {
+
+    private final MemoryPoolMXBean eden;
+
+    private long alloues;
+
+    private long edenApresDernierGc;
+
+    public MesureAllocations() {
+        MemoryPoolMXBean edenTrouve = null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().endsWith("Eden Space")) {
+                edenTrouve = pool;
+            }
+        }
+        if (edenTrouve == null) {
+            throw new IllegalStateException("Aucun eden trouvé parmi les zones mémoire de la JVM");
+        }
+        this.eden = edenTrouve;
+        this.edenApresDernierGc = eden.getUsage().getUsed();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+        }
+    }
+
+    @Override
+    public synchronized void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        Map<String, MemoryUsage> avant = info.getGcInfo().getMemoryUsageBeforeGc();
+        Map<String, MemoryUsage> apres = info.getGcInfo().getMemoryUsageAfterGc();
+        if (avant.containsKey(eden.getName())) {
+            alloues += Math.max(0, avant.get(eden.getName()).getUsed() - edenApresDernierGc);
+            edenApresDernierGc = apres.get(eden.getName()).getUsed();
+        }
+    }
+
+    /**
+     * @return les octets alloués depuis la création de cette mesure
+     */
+    public synchronized long getAlloues() {
+        return alloues + Math.max(0, eden.getUsage().getUsed() - edenApresDernierGc);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).removeNotificationListener(this);
+        }
+    }
+}
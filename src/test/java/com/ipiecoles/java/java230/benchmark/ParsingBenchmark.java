@@ -0,0 +1,90 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.batch.ChampsCsv;
+import com.ipiecoles.java.java230.batch.EmployeParser;
+import com.ipiecoles.java.java230.batch.LigneEmploye;
+import com.ipiecoles.java.java230.batch.ParseurDate;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de l'analyse d'une ligne du fichier CSV par type d'employé, sur des lignes valides et invalides (matricule,
+ * date, nombre de champs, manager), et comparaison du découpage et de la lecture de la date avec les anciennes
+ * implémentations (String.split, DateTimeFormat.forPattern à chaque ligne).
+ * Le profileur GC donne les octets alloués par opération (gc.alloc.rate.norm).
+ * A lancer après un mvn test-compile, avec le classpath de test, ou par mvn -P benchmark test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+
+    @State(Scope.Thread)
+    public static class Ligne {
+
+        @Param({"M12345,durand,jacques,04/06/2013,1200.5",
+                "T12345,dupont,pierre,12/03/2003,1700.5,3,M12345",
+                "C12345,aubert,michel,05/09/2018,2200.5,150000.0,100",
+                "T1234,dupont,pierre,12/03/2003,1700.5,3,M12345",
+                "C12345,aubert,michel,31/13/2018,2200.5,150000.0,100",
+                "M12345,durand,jacques,04/06/2013",
+                "T12345,dupont,pierre,12/03/2003,1700.5,3,X12345"})
+        public String ligne;
+
+        private final EmployeParser parser = new EmployeParser();
+
+        private final ChampsCsv champs = new ChampsCsv();
+    }
+
+    @State(Scope.Thread)
+    public static class Date {
+
+        public String date = "12/03/2003";
+    }
+
+    @Benchmark
+    public LigneEmploye parse(Ligne ligne) {
+        return ligne.parser.parse(1, ligne.ligne);
+    }
+
+    @Benchmark
+    public int decouper(Ligne ligne) {
+        return ligne.champs.decouper(ligne.ligne);
+    }
+
+    @Benchmark
+    public String[] split(Ligne ligne) {
+        return ligne.ligne.split(",");
+    }
+
+    @Benchmark
+    public LocalDate dateForPattern(Date date) {
+        return DateTimeFormat.forPattern(ParseurDate.FORMAT).parseLocalDate(date.date);
+    }
+
+    @Benchmark
+    public LocalDate dateParseurDate(Date date) {
+        return ParseurDate.parse(date.date);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ParsingBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.batch.EmployeParser;
+import com.ipiecoles.java.java230.batch.Validateurs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare la validation des champs d'une ligne employé par String.matches (ancienne implémentation, qui compile
+ * l'expression régulière à chaque appel) et par les Validateurs (contrôle manuel des matricules, Pattern précompilés).
+ * A lancer après un mvn test-compile, avec le classpath de test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"M12345,durand,jean-pierre,M54321", "T1234,dupont,pierre,C12345", "C12345,dur4nd,ma rie,M1234X"})
+    public String champs;
+
+    private String matricule;
+
+    private String nom;
+
+    private String prenom;
+
+    private String matriculeManager;
+
+    @Setup
+    public void setup() {
+        String[] valeurs = champs.split(",");
+        matricule = valeurs[0];
+        nom = valeurs[1];
+        prenom = valeurs[2];
+        matriculeManager = valeurs[3];
+    }
+
+    @Benchmark
+    public int stringMatches() {
+        int valides = 0;
+        valides += matricule.matches(EmployeParser.REGEX_MATRICULE) ? 1 : 0;
+        valides += nom.matches(EmployeParser.REGEX_NOM) ? 1 : 0;
+        valides += prenom.matches(EmployeParser.REGEX_PRENOM) ? 1 : 0;
+        valides += matriculeManager.matches(EmployeParser.REGEX_MATRICULE_MANAGER) ? 1 : 0;
+        return valides;
+    }
+
+    @Benchmark
+    public int validateurs() {
+        int valides = 0;
+        valides += Validateurs.matricule(matricule) ? 1 : 0;
+        valides += Validateurs.nom(nom) ? 1 : 0;
+        valides += Validateurs.prenom(prenom) ? 1 : 0;
+        valides += Validateurs.matriculeManager(matriculeManager) ? 1 : 0;
+        return valides;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ValidationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,17 @@
+package com.ipiecoles.java.java230.model;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class NormalisationNomTest {
+
+    @Test
+    public void testNormaliser() {
+        Assertions.assertThat(NormalisationNom.normaliser("Durand")).isEqualTo("durand");
+        Assertions.assertThat(NormalisationNom.normaliser(" HÉLÈNE ")).isEqualTo("helene");
+        Assertions.assertThat(NormalisationNom.normaliser("Jean-François")).isEqualTo("jean-francois");
+        Assertions.assertThat(NormalisationNom.normaliser("Müller Çelik")).isEqualTo("muller celik");
+        Assertions.assertThat(NormalisationNom.normaliser("")).isEqualTo("");
+        Assertions.assertThat(NormalisationNom.normaliser(null)).isNull();
+    }
+}
@@ -0,0 +1,127 @@
+package com.ipiecoles.java.java230.repository;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Pagination par clé et lecture en Stream, sur une base H2 en mémoire
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = {"spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class EmployeRepositoryPaginationTest {
+
+    private static final int TAILLE_PAGE = 3;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private ManagerRepository managerRepository;
+
+    @Before
+    public void setUp() {
+        List<Employe> employes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            //Salaires et dates en double pour que l'id départage les employés de même clé
+            employes.add(new Commercial("aubert", "michel", String.format("C%05d", i), new LocalDate(2010 + i / 2, 1, 1),
+                    2000d + (i / 2) * 100, 150000d, 100));
+        }
+        employes.add(new Manager("durand", "jacques", "M00001", new LocalDate(2012, 1, 1), 2200d, new HashSet<>()));
+        employeRepository.save(employes);
+    }
+
+    @Test
+    public void testPaginationSalaire() {
+        //Given
+        List<Employe> attendus = employeRepository.findBySalaireGreaterThanOrderBySalaireDesc(2050d);
+
+        //When
+        List<Employe> lus = new ArrayList<>();
+        List<Employe> page = employeRepository.findBySalaireGreaterThanOrderBySalaireDescIdDesc(2050d, new PageRequest(0, TAILLE_PAGE));
+        while (!page.isEmpty()) {
+            Assertions.assertThat(page.size()).isLessThanOrEqualTo(TAILLE_PAGE);
+            lus.addAll(page);
+            Employe dernier = page.get(page.size() - 1);
+            page = employeRepository.findBySalaireGreaterThanApres(2050d, dernier.getSalaire(), dernier.getId(), new PageRequest(0, TAILLE_PAGE));
+        }
+
+        //Then
+        Assertions.assertThat(lus).hasSize(9);
+        Assertions.assertThat(lus).hasSameElementsAs(attendus);
+        Assertions.assertThat(lus).extracting(Employe::getSalaire).isSortedAccordingTo((a, b) -> Double.compare(b, a));
+    }
+
+    @Test
+    public void testPaginationDateEmbauche() {
+        //Given
+        LocalDate date = new LocalDate(2013, 1, 1);
+
+        //When
+        List<Employe> avant = new ArrayList<>();
+        List<Employe> page = employeRepository.findByDateEmbaucheBeforeOrderByDateEmbaucheAscIdAsc(date, new PageRequest(0, TAILLE_PAGE));
+        while (!page.isEmpty()) {
+            avant.addAll(page);
+            Employe dernier = page.get(page.size() - 1);
+            page = employeRepository.findByDateEmbaucheBeforeApres(date, dernier.getDateEmbauche(), dernier.getId(), new PageRequest(0, TAILLE_PAGE));
+        }
+        List<Employe> apres = new ArrayList<>();
+        page = employeRepository.findByDateEmbaucheAfterOrderByDateEmbaucheAscIdAsc(date, new PageRequest(0, TAILLE_PAGE));
+        while (!page.isEmpty()) {
+            apres.addAll(page);
+            Employe dernier = page.get(page.size() - 1);
+            page = employeRepository.findByDateEmbaucheAfterApres(date, dernier.getDateEmbauche(), dernier.getId(), new PageRequest(0, TAILLE_PAGE));
+        }
+
+        //Then
+        Assertions.assertThat(avant).hasSameElementsAs(employeRepository.findByDateEmbaucheBefore(date));
+        Assertions.assertThat(avant).hasSize(7);
+        Assertions.assertThat(apres).hasSameElementsAs(employeRepository.findByDateEmbaucheAfter(date));
+        Assertions.assertThat(apres).hasSize(2);
+        Assertions.assertThat(avant).extracting(Employe::getDateEmbauche).isSorted();
+    }
+
+    @Test
+    public void testStream() {
+        //Given
+        Double salaireMoyen = employeRepository.findSalaireMoyen();
+
+        //When
+        List<Employe> plusRiches;
+        try (Stream<Employe> employes = employeRepository.streamBySalaireGreaterThanOrderBySalaireDesc(salaireMoyen)) {
+            plusRiches = employes.collect(Collectors.toList());
+        }
+        long nbPlusRiches;
+        try (Stream<Employe> employes = employeRepository.streamEmployePlusRiches()) {
+            nbPlusRiches = employes.count();
+        }
+        long managers;
+        try (Stream<Manager> stream = managerRepository.streamByDateEmbaucheAfter(new LocalDate(2011, 6, 1))) {
+            managers = stream.count();
+        }
+
+        //Then
+        Assertions.assertThat(salaireMoyen).isEqualTo((2000d * 2 + 2100 * 2 + 2200 * 2 + 2300 * 2 + 2400 * 2 + 2200) / 11);
+        Assertions.assertThat(plusRiches).hasSameElementsAs(employeRepository.findBySalaireGreaterThanOrderBySalaireDesc(salaireMoyen));
+        Assertions.assertThat(nbPlusRiches).isEqualTo(plusRiches.size());
+        Assertions.assertThat(managers).isEqualTo(1);
+    }
+}
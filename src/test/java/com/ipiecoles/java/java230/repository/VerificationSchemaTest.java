@@ -0,0 +1,53 @@
+package com.ipiecoles.java.java230.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Vérification du schéma au démarrage, sur une base H2 en mémoire créée par Hibernate
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(VerificationSchema.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class VerificationSchemaTest {
+
+    @Autowired
+    private VerificationSchema verificationSchema;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testColonneManquante() throws Exception {
+        //Given
+        jdbcTemplate.execute("ALTER TABLE Employe DROP COLUMN empreinteLigne");
+
+        //When/Then
+        try {
+            Assertions.assertThatThrownBy(() -> verificationSchema.verifier())
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("sql/employe_delta.sql")
+                    .hasMessageContaining("Employe.empreinteLigne");
+        } finally {
+            //La migration automatique recrée la colonne
+            ReflectionTestUtils.setField(verificationSchema, "migrationAuto", true);
+            verificationSchema.verifier();
+            ReflectionTestUtils.setField(verificationSchema, "migrationAuto", false);
+        }
+        verificationSchema.verifier();
+        Assertions.assertThat(jdbcTemplate.queryForObject("SELECT count(empreinteLigne) FROM Employe", Long.class)).isEqualTo(0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Recherche par nom et prénom normalisés, sur une base H2 en mémoire
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({EmployeService.class, StatistiquesSalaires.class})
+@TestPropertySource(properties = {"spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class RechercheNomsTest {
+
+    @Autowired
+    private EmployeService employeService;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Before
+    public void setUp() {
+        employeRepository.save(Arrays.asList(
+                commercial("C00001", "Lefèvre", "Hélène"),
+                commercial("C00002", "LEFEVRE", "Jean"),
+                commercial("C00003", "Dupont", "Lefevre"),
+                commercial("C00004", "Le_Goff", "Yann"),
+                new Manager("Legrand", "Émile", "M00001", new LocalDate(2012, 1, 1), 2200d, new HashSet<>())));
+    }
+
+    private static Commercial commercial(String matricule, String nom, String prenom) {
+        return new Commercial(nom, prenom, matricule, new LocalDate(2018, 9, 5), 2200.5, 150000d, 100);
+    }
+
+    @Test
+    public void testRechercherParNom() {
+        //Given
+
+        //When
+        List<Employe> employes = employeService.rechercherParNom("lefevre");
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsOnly("C00001", "C00002");
+        Assertions.assertThat(employeService.rechercherParNom("LEFÈVRE ")).hasSize(2);
+        Assertions.assertThat(employeService.rechercherParNom("lef")).isEmpty();
+    }
+
+    @Test
+    public void testRechercherParNomOuPrenom() {
+        Assertions.assertThat(employeService.rechercherParNomOuPrenom("Lefevre")).extracting(Employe::getMatricule)
+                .containsOnly("C00001", "C00002", "C00003");
+        Assertions.assertThat(employeService.rechercherParNomOuPrenom("helene")).extracting(Employe::getMatricule)
+                .containsOnly("C00001");
+        Assertions.assertThat(employeService.rechercherParNomOuPrenom("emile")).extracting(Employe::getMatricule)
+                .containsOnly("M00001");
+    }
+
+    @Test
+    public void testRechercherParDebutNomOuPrenom() {
+        Assertions.assertThat(employeService.rechercherParDebutNomOuPrenom("LÉ", 10)).extracting(Employe::getMatricule)
+                .containsOnly("C00001", "C00002", "C00003", "C00004", "M00001");
+        Assertions.assertThat(employeService.rechercherParDebutNomOuPrenom("le", 2)).hasSize(2);
+        //_ n'est pas un joker
+        Assertions.assertThat(employeService.rechercherParDebutNomOuPrenom("le_", 10)).extracting(Employe::getMatricule)
+                .containsOnly("C00004");
+        Assertions.assertThat(employeService.rechercherParDebutNomOuPrenom("%", 10)).isEmpty();
+        Assertions.assertThat(employeService.rechercherParDebutNomOuPrenom(null, 10)).isEmpty();
+    }
+
+    @Test
+    public void testMiseAJourDuNom() {
+        //Given
+        Employe employe = employeRepository.findByMatricule("C00002");
+
+        //When
+        employe.setNom("Éluard");
+        employeRepository.save(employe);
+
+        //Then
+        Assertions.assertThat(employeService.rechercherParNom("eluard")).extracting(Employe::getMatricule).containsOnly("C00002");
+        Assertions.assertThat(employeService.rechercherParNom("lefevre")).extracting(Employe::getMatricule).containsOnly("C00001");
+    }
+}
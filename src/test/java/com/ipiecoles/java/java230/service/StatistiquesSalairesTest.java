@@ -0,0 +1,140 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistiques des salaires tenues à jour par EmployeService, sur une base H2 en mémoire.
+ * Les tests ne sont pas transactionnels : les statistiques ne sont mises à jour qu'après validation.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({EmployeService.class, StatistiquesSalaires.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class StatistiquesSalairesTest {
+
+    @Autowired
+    private EmployeService employeService;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
+    @Before
+    public void setUp() {
+        List<Employe> employes = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            employes.add(commercial(i, 1000d * i));
+        }
+        employeRepository.save(employes);
+        statistiquesSalaires.invalider();
+    }
+
+    @After
+    public void tearDown() {
+        employeRepository.deleteAll();
+    }
+
+    private static Commercial commercial(int numero, Double salaire) {
+        return new Commercial("aubert", "michel", String.format("C%05d", numero), new LocalDate(2018, 9, 5), salaire, 150000d, 100);
+    }
+
+    @Test
+    public void testChargement() {
+        //Given
+
+        //When
+        Double moyenne = statistiquesSalaires.getMoyenne();
+
+        //Then
+        Assertions.assertThat(moyenne).isEqualTo(5500d);
+        Assertions.assertThat(statistiquesSalaires.getNombre()).isEqualTo(10);
+        Assertions.assertThat(statistiquesSalaires.getSomme()).isEqualTo(55000d);
+        Assertions.assertThat(statistiquesSalaires.getMin()).isEqualTo(1000d);
+        Assertions.assertThat(statistiquesSalaires.getMax()).isEqualTo(10000d);
+        //Médiane approchée à la largeur d'intervalle près (100)
+        Assertions.assertThat(statistiquesSalaires.quantile(0.5)).isCloseTo(5000d, Offset.offset(100d));
+        Assertions.assertThat(statistiquesSalaires.quantile(1)).isEqualTo(10000d);
+    }
+
+    @Test
+    public void testMisesAJourParEmployeService() {
+        //Given
+        statistiquesSalaires.getMoyenne();
+        Employe plusRiche = employeRepository.findByMatricule("C00010");
+        Employe moinsRiche = employeRepository.findByMatricule("C00001");
+
+        //When
+        employeService.creerEmploye(commercial(11, 22000d));
+        plusRiche.setSalaire(500d);
+        employeService.creerEmploye(plusRiche);
+        employeService.deleteEmploye(moinsRiche.getId());
+
+        //Then
+        Assertions.assertThat(statistiquesSalaires.getNombre()).isEqualTo(10);
+        Assertions.assertThat(statistiquesSalaires.getMoyenne()).isEqualTo(employeRepository.findSalaireMoyen());
+        Assertions.assertThat(statistiquesSalaires.getMin()).isEqualTo(500d);
+        Assertions.assertThat(statistiquesSalaires.getMax()).isEqualTo(22000d);
+        statistiquesSalaires.rafraichir();
+        Assertions.assertThat(statistiquesSalaires.getMoyenne()).isEqualTo(employeRepository.findSalaireMoyen());
+    }
+
+    @Test
+    public void testQuantileApresRetraitDuMaximum() {
+        //Given
+        statistiquesSalaires.getMoyenne();
+        Employe plusRiche = employeRepository.findByMatricule("C00010");
+
+        //When
+        employeService.deleteEmploye(plusRiche.getId());
+        Double quantileMax = statistiquesSalaires.quantile(1);
+        employeRepository.deleteAll();
+        statistiquesSalaires.invalider();
+        Double quantileSansSalaire = statistiquesSalaires.quantile(0.5);
+        employeService.creerEmploye(commercial(11, 1234d));
+
+        //Then
+        Assertions.assertThat(quantileMax).isEqualTo(9000d);
+        Assertions.assertThat(quantileSansSalaire).isNull();
+        Assertions.assertThat(statistiquesSalaires.quantile(0.5)).isEqualTo(1234d);
+    }
+
+    @Test
+    public void testFindEmployePlusRiches() {
+        //Given
+        employeService.creerEmploye(commercial(11, 20000d));
+
+        //When
+        List<Employe> plusRiches = employeService.findEmployePlusRiches();
+        List<Employe> page1 = employeService.findEmployePlusRiches(null, 2);
+        List<Employe> page2 = employeService.findEmployePlusRiches(page1.get(1), 2);
+
+        //Then
+        Assertions.assertThat(plusRiches).hasSameElementsAs(employeRepository.findBySalaireGreaterThanOrderBySalaireDesc(employeRepository.findSalaireMoyen()));
+        Assertions.assertThat(plusRiches).extracting(Employe::getMatricule).containsExactly("C00011", "C00010", "C00009", "C00008", "C00007");
+        Assertions.assertThat(page1).extracting(Employe::getMatricule).containsExactly("C00011", "C00010");
+        Assertions.assertThat(page2).extracting(Employe::getMatricule).containsExactly("C00009", "C00008");
+    }
+}